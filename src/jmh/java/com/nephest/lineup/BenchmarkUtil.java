@@ -0,0 +1,80 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup;
+
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.Region;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.pulse.PlayerCharacter;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import com.nephest.lineup.discord.DiscordBootstrap;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.core.convert.ConversionService;
+
+/**
+ * <p>Shared benchmark fixtures.</p>
+ */
+public final class BenchmarkUtil {
+
+  public static final int PLAYER_COUNT = 20;
+
+  private BenchmarkUtil() {
+  }
+
+  public static ConversionService createConversionService() {
+    return new Main().discordConversionService(
+        new DiscordBootstrap(Map.of(), Duration.ofMinutes(10), 10000)
+    );
+  }
+
+  public static RuleSet createRuleSet() {
+    RuleSet ruleSet = new RuleSet("ruleset", 120, 10, 1000, 5000, 1000, 5000, 1000, 6000);
+    ruleSet.setId(1L);
+    return ruleSet;
+  }
+
+  public static Lineup createLineup(RuleSet ruleSet) {
+    Lineup lineup = new Lineup(
+        ruleSet,
+        PLAYER_COUNT,
+        OffsetDateTime.now().plusDays(1),
+        new ArrayList<>()
+    );
+    for (int i = 0; i < PLAYER_COUNT; i++) {
+      new Player(1L, lineup, i + 1, String.valueOf(i + 1), Race.values()[i % 4]);
+    }
+    return lineup;
+  }
+
+  /**
+   * <p>Creates summaries of all races for players of {@link #createLineup(RuleSet)}.</p>
+   *
+   * @return summaries, every 5th player violates the rule set
+   */
+  public static List<PlayerSummary> createSummaries() {
+    List<PlayerSummary> summaries = new ArrayList<>();
+    for (long id = 1; id <= PLAYER_COUNT; id++) {
+      for (Race race : Race.values()) {
+        int rating = id % 5 == 0 ? 7000 : 3000 + (int) id;
+        summaries.add(new PlayerSummary(id, race, 50, rating, rating, rating, 1));
+      }
+    }
+    return summaries;
+  }
+
+  public static List<PlayerCharacter> createCharacters() {
+    List<PlayerCharacter> characters = new ArrayList<>();
+    for (long id = 1; id <= PLAYER_COUNT; id++) {
+      characters.add(new PlayerCharacter(id, id, Region.EU, 1, id, "name#" + id, null));
+    }
+    return characters;
+  }
+
+}
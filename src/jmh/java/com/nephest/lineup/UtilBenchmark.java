@@ -0,0 +1,43 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup;
+
+import com.nephest.lineup.data.Race;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+@State(Scope.Benchmark)
+public class UtilBenchmark {
+
+  @Param({"123456789", "name"})
+  public String integer;
+
+  @Param({"2h", "1650000000"})
+  public String dateTime;
+
+  @Benchmark
+  public boolean isInteger() {
+    return Util.isInteger(integer);
+  }
+
+  @Benchmark
+  public OffsetDateTime parse() {
+    return Util.parse(dateTime, ChronoUnit.HOURS);
+  }
+
+  @Benchmark
+  public Race raceFrom() {
+    return Race.from("Random");
+  }
+
+  @Benchmark
+  public Race raceFromPrefix() {
+    return Race.fromPrefix("r");
+  }
+
+}
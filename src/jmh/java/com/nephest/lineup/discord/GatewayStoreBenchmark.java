@@ -0,0 +1,48 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import discord4j.common.store.Store;
+import discord4j.discordjson.json.gateway.MessageCreate;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * <p>
+ * Compares message dispatch cost of the default gateway store and the interactions-only
+ * store. Message ids are reused after {@link #MESSAGE_COUNT} messages, so the default store
+ * retains up to {@code MESSAGE_COUNT} messages. Retained size is verified by
+ * {@code DiscordStoreFootprintTest}, allocation rate is reported by the gc profiler.
+ * </p>
+ */
+@State(Scope.Benchmark)
+public class GatewayStoreBenchmark {
+
+  public static final int MESSAGE_COUNT = 20_000;
+
+  @Param({"false", "true"})
+  public boolean interactionsOnly;
+
+  private Store store;
+  private MessageCreate[] dispatches;
+  private int next;
+
+  @Setup
+  public void setup() throws JsonProcessingException {
+    store = DiscordBootstrap.createStore(interactionsOnly);
+    dispatches = GatewayStoreFixture.createMessages(MESSAGE_COUNT);
+  }
+
+  @Benchmark
+  public Object messageCreate() {
+    MessageCreate dispatch = dispatches[next];
+    next = next + 1 == MESSAGE_COUNT ? 0 : next + 1;
+    return GatewayStoreFixture.execute(store, dispatch);
+  }
+
+}
@@ -0,0 +1,68 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord.convert;
+
+import com.nephest.lineup.BenchmarkUtil;
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.discord.LineupPlayerData;
+import com.nephest.lineup.discord.PlayerStatus;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.convert.ConversionService;
+
+/**
+ * <p>Benchmarks converters of the {@code discordConversionService}.</p>
+ */
+@State(Scope.Benchmark)
+public class ConversionBenchmark {
+
+  private ConversionService conversionService;
+  private RuleSet ruleSet;
+  private Lineup lineup;
+  private LineupPlayerData playerData;
+
+  @Setup
+  public void setup() {
+    conversionService = BenchmarkUtil.createConversionService();
+    ruleSet = BenchmarkUtil.createRuleSet();
+    lineup = BenchmarkUtil.createLineup(ruleSet);
+    playerData = new LineupPlayerData(
+        lineup.getPlayers().get(0),
+        BenchmarkUtil.createCharacters().get(0),
+        PlayerStatus.ERROR,
+        List.of("games: 1", "mmr: 7000")
+    );
+  }
+
+  @Benchmark
+  public String ruleSetToString() {
+    return conversionService.convert(ruleSet, String.class);
+  }
+
+  @Benchmark
+  public String lineupToString() {
+    return conversionService.convert(lineup, String.class);
+  }
+
+  @Benchmark
+  public String playerDataToString() {
+    return conversionService.convert(playerData, String.class);
+  }
+
+  @Benchmark
+  public Race stringToRace() {
+    return conversionService.convert("zerg", Race.class);
+  }
+
+  @Benchmark
+  public Race integerToRace() {
+    return conversionService.convert(3, Race.class);
+  }
+
+}
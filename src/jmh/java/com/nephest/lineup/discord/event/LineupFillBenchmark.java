@@ -0,0 +1,73 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord.event;
+
+import com.nephest.lineup.BenchmarkUtil;
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Player;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.convert.ConversionService;
+
+@State(Scope.Benchmark)
+public class LineupFillBenchmark {
+
+  private ConversionService conversionService;
+  private String lineupString;
+
+  @Setup
+  public void setup() {
+    conversionService = BenchmarkUtil.createConversionService();
+    StringBuilder sb = new StringBuilder();
+    for (int i = 1; i <= BenchmarkUtil.PLAYER_COUNT; i++) {
+      if (i > 1) {
+        sb.append(", ");
+      }
+      //race id, name race, and pulse id race formats
+      switch (i % 3) {
+        case 0:
+          sb.append(i).append(i % 4 + 1);
+          break;
+        case 1:
+          sb.append("name").append(i).append(" zerg");
+          break;
+        default:
+          sb.append(i).append(" p");
+          break;
+      }
+    }
+    lineupString = sb.toString();
+  }
+
+  private Lineup createLineup() {
+    return new Lineup(null, BenchmarkUtil.PLAYER_COUNT, null, new ArrayList<>());
+  }
+
+  @Benchmark
+  public List<Player> parseLineup() throws ParseException {
+    return LineupFillSlashCommand.parseLineup(1L, createLineup(), lineupString, conversionService);
+  }
+
+  @Benchmark
+  public Player parsePlayerRaceId() throws ParseException {
+    return LineupFillSlashCommand.parsePlayer(1L, createLineup(), 1, "12343", conversionService);
+  }
+
+  @Benchmark
+  public Player parsePlayerNameRace() throws ParseException {
+    return LineupFillSlashCommand.parsePlayer(
+        1L,
+        createLineup(),
+        1,
+        "name zerg",
+        conversionService
+    );
+  }
+
+}
@@ -0,0 +1,115 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import com.nephest.lineup.BenchmarkUtil;
+import com.nephest.lineup.config.PulseApiSettings;
+import com.nephest.lineup.config.PulseResilienceSettings;
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.pulse.PlayerCharacter;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.data.util.Pair;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+@State(Scope.Benchmark)
+public class LineupUtilBenchmark {
+
+  private RuleSet ruleSet;
+  private RuleSetEvaluator evaluator;
+  private PlayerSummary validSummary;
+  private PlayerSummary invalidSummary;
+  private List<Player> players;
+  private PulseApi pulseApi;
+  private ConversionService conversionService;
+
+  @Setup
+  public void setup() {
+    ruleSet = BenchmarkUtil.createRuleSet();
+    evaluator = RuleSetEvaluator.compile(ruleSet);
+    validSummary = new PlayerSummary(1L, Race.ZERG, 50, 3000, 3000, 3000, 1);
+    invalidSummary = new PlayerSummary(1L, Race.ZERG, 5, 7000, 7000, 7000, 1);
+    Lineup lineup = BenchmarkUtil.createLineup(ruleSet);
+    players = lineup.getPlayers();
+    pulseApi = new StubPulseApi(BenchmarkUtil.createSummaries(), BenchmarkUtil.createCharacters());
+    conversionService = BenchmarkUtil.createConversionService();
+  }
+
+  @Benchmark
+  public List<String> checkEligibilityValid() {
+    return LineupUtil.checkEligibility(validSummary, ruleSet);
+  }
+
+  @Benchmark
+  public List<String> checkEligibilityInvalid() {
+    return LineupUtil.checkEligibility(invalidSummary, ruleSet);
+  }
+
+  @Benchmark
+  public int evaluateCompiled() {
+    return evaluator.evaluate(validSummary);
+  }
+
+  @Benchmark
+  public Pair<Boolean, String> processPlayers() {
+    return LineupUtil.processPlayers(new ArrayList<>(players), ruleSet, pulseApi, conversionService)
+        .block();
+  }
+
+  /**
+   * <p>Returns prebuilt responses to benchmark processing without IO.</p>
+   */
+  private static final class StubPulseApi extends PulseApi {
+
+    private final Mono<List<PlayerSummary>> summaries;
+    private final Mono<List<PlayerCharacter>> characters;
+
+    private StubPulseApi(List<PlayerSummary> summaries, List<PlayerCharacter> characters) {
+      super(
+          WebClient.create(),
+          new PulseApiSettings(1, Duration.ofMinutes(1), false, Duration.ZERO, 1, 100, 1),
+          new PulseResilienceSettings(
+              50,
+              50,
+              Duration.ofSeconds(1),
+              10,
+              10,
+              Duration.ofSeconds(1),
+              1,
+              1,
+              Duration.ofMinutes(1)
+          ),
+          new SimpleMeterRegistry()
+      );
+      this.summaries = Mono.just(summaries);
+      this.characters = Mono.just(characters);
+    }
+
+    @Override
+    public Mono<List<PlayerSummary>> getSummaries(int depth, Map<Long, Set<Race>> races) {
+      return summaries;
+    }
+
+    @Override
+    public Mono<List<PlayerCharacter>> getCharacters(Long... ids) {
+      return characters;
+    }
+
+  }
+
+}
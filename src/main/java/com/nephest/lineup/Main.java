@@ -4,7 +4,10 @@
 package com.nephest.lineup;
 
 
+import com.nephest.lineup.config.CommandExecutionSettings;
 import com.nephest.lineup.config.GlobalRestTemplateCustomizer;
+import com.nephest.lineup.config.GlobalWebClientCustomizer;
+import com.nephest.lineup.config.HttpTransportSettings;
 import com.nephest.lineup.discord.DiscordBootstrap;
 import com.nephest.lineup.discord.convert.IntegerToRaceConverter;
 import com.nephest.lineup.discord.convert.LineupPlayerDataToStringConverter;
@@ -16,6 +19,7 @@ import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.boot.web.client.RestTemplateCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
 import org.springframework.boot.web.servlet.support.SpringBootServletInitializer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.PropertySource;
@@ -23,11 +27,18 @@ import org.springframework.core.convert.ConversionService;
 import org.springframework.format.support.DefaultFormattingConversionService;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.scheduler.Scheduler;
+import reactor.netty.resources.ConnectionProvider;
 
 @SpringBootApplication
 @EnableScheduling
 @PropertySource(value = "classpath:application-private.properties", ignoreResourceNotFound = true)
 public class Main extends SpringBootServletInitializer {
+
+  public static final String WEB_CLIENT_CONNECTION_PROVIDER_NAME = "web-client";
+  public static final String DISCORD_COMMAND_SCHEDULER_NAME = "discord-command";
+
   public static void main(String[] args) {
     SpringApplication.run(Main.class, args);
   }
@@ -57,4 +68,26 @@ public class Main extends SpringBootServletInitializer {
     return builder.build();
   }
 
+  @Bean(destroyMethod = "dispose")
+  public ConnectionProvider webClientConnectionProvider(HttpTransportSettings settings) {
+    return settings.createConnectionProvider(WEB_CLIENT_CONNECTION_PROVIDER_NAME);
+  }
+
+  @Bean
+  public WebClientCustomizer webClientCustomizer(
+      HttpTransportSettings settings, ConnectionProvider webClientConnectionProvider
+  ) {
+    return new GlobalWebClientCustomizer(settings.createHttpClient(webClientConnectionProvider));
+  }
+
+  @Bean
+  public WebClient webClient(WebClient.Builder builder) {
+    return builder.build();
+  }
+
+  @Bean(destroyMethod = "dispose")
+  public Scheduler discordCommandScheduler(CommandExecutionSettings settings) {
+    return settings.createScheduler(DISCORD_COMMAND_SCHEDULER_NAME);
+  }
+
 }
\ No newline at end of file
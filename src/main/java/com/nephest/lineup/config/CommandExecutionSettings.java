@@ -0,0 +1,61 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * <p>
+ * Discord command execution settings. Commands are executed by a dedicated pool of up to
+ * {@code threads} threads, so blocking JPA and HTTP calls don't block gateway threads. Up to
+ * {@code queueSize} tasks per thread can wait for a free thread, new commands are rejected
+ * when the queue is full.
+ * </p>
+ */
+@Component
+public class CommandExecutionSettings {
+
+  private final int threads;
+  private final int queueSize;
+  private final Duration threadTtl;
+
+  @Autowired
+  public CommandExecutionSettings(
+      @Value("${discord.command.threads:10}") int threads,
+      @Value("${discord.command.queue-size:100}") int queueSize,
+      @Value("${discord.command.thread-ttl:PT60S}") Duration threadTtl
+  ) {
+    this.threads = threads;
+    this.queueSize = queueSize;
+    this.threadTtl = threadTtl;
+  }
+
+  public Scheduler createScheduler(String name) {
+    return Schedulers.newBoundedElastic(
+        threads,
+        queueSize,
+        name,
+        (int) threadTtl.getSeconds(),
+        true
+    );
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  public int getQueueSize() {
+    return queueSize;
+  }
+
+  public Duration getThreadTtl() {
+    return threadTtl;
+  }
+
+}
@@ -0,0 +1,121 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import discord4j.core.shard.ShardingStrategy;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.IntStream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ * Discord gateway sharding settings. The shard count recommended by discord is used if
+ * {@code count} is 0. Every process connects to all shards unless {@code indexes} are set.
+ * Several processes can split shards by using the same fixed {@code count} and different
+ * {@code indexes}, for example {@code 0-3} and {@code 4-7}.
+ * </p>
+ */
+@Component
+public class DiscordShardingSettings {
+
+  public static final int RECOMMENDED_COUNT = 0;
+
+  private final int count;
+  private final int[] indexes;
+  private final int maxConcurrency;
+
+  @Autowired
+  public DiscordShardingSettings(
+      @Value("${discord.shard.count:0}") int count,
+      @Value("${discord.shard.indexes:}") String indexes,
+      @Value("${discord.shard.max-concurrency:1}") int maxConcurrency
+  ) {
+    this.count = count;
+    this.indexes = parseIndexes(indexes);
+    this.maxConcurrency = maxConcurrency;
+    if (count < 0) {
+      throw new IllegalArgumentException("Invalid shard count: " + count);
+    }
+    //recommended count can change between restarts, processes must agree on the count
+    if (this.indexes.length > 0 && count == RECOMMENDED_COUNT) {
+      throw new IllegalArgumentException("discord.shard.count is required when indexes are set");
+    }
+    for (int index : this.indexes) {
+      if (index >= count && count != RECOMMENDED_COUNT) {
+        throw new IllegalArgumentException("Shard index " + index + " is out of range " + count);
+      }
+    }
+  }
+
+  /**
+   * <p>Parses shard indexes and index ranges.</p>
+   *
+   * @param indexes comma separated indexes and inclusive ranges, for example {@code 0-3,5}
+   * @return sorted unique indexes, empty array if {@code indexes} is empty
+   */
+  public static int[] parseIndexes(String indexes) {
+    if (indexes == null || indexes.isBlank()) {
+      return new int[0];
+    }
+
+    Set<Integer> result = new LinkedHashSet<>();
+    for (String part : indexes.split(",")) {
+      String trimmed = part.trim();
+      int rangeIx = trimmed.indexOf('-', 1);
+      int from = Integer.parseInt((rangeIx < 0 ? trimmed : trimmed.substring(0, rangeIx)).trim());
+      int to = rangeIx < 0 ? from : Integer.parseInt(trimmed.substring(rangeIx + 1).trim());
+      if (from < 0 || to < from) {
+        throw new IllegalArgumentException("Invalid shard index range: " + trimmed);
+      }
+      for (int i = from; i <= to; i++) {
+        result.add(i);
+      }
+    }
+    return result.stream().mapToInt(Integer::intValue).sorted().toArray();
+  }
+
+  public ShardingStrategy createStrategy() {
+    if (count == RECOMMENDED_COUNT) {
+      return ShardingStrategy.builder().maxConcurrency(maxConcurrency).build();
+    }
+
+    ShardingStrategy.Builder builder = ShardingStrategy.builder()
+        .count(count)
+        .maxConcurrency(maxConcurrency);
+    if (indexes.length > 0) {
+      builder.indices(indexes);
+    }
+    return builder.build();
+  }
+
+  /**
+   * <p>Shard indexes this process connects to.</p>
+   *
+   * @param recommendedCount shard count recommended by discord, used if {@code count} is not set
+   * @return sorted shard indexes
+   */
+  public int[] getExpectedIndexes(int recommendedCount) {
+    if (indexes.length > 0) {
+      return getIndexes();
+    }
+    return IntStream.range(0, count == RECOMMENDED_COUNT ? recommendedCount : count).toArray();
+  }
+
+  public int getCount() {
+    return count;
+  }
+
+  public int[] getIndexes() {
+    return Arrays.copyOf(indexes, indexes.length);
+  }
+
+  public int getMaxConcurrency() {
+    return maxConcurrency;
+  }
+
+}
@@ -0,0 +1,64 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import io.netty.channel.ChannelOption;
+import java.time.Duration;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * This customizer sets connect and IO timeouts, and raises the in-memory buffer limit so big
+ * pulse responses can be decoded.
+ */
+public class GlobalWebClientCustomizer implements WebClientCustomizer {
+
+  public static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024;
+
+  private final HttpClient httpClient;
+  private final Duration connectTimeout;
+  private final Duration ioTimeout;
+
+  public GlobalWebClientCustomizer() {
+    this(HttpClient.create());
+  }
+
+  public GlobalWebClientCustomizer(HttpClient httpClient) {
+    this(
+        httpClient,
+        GlobalRestTemplateCustomizer.CONNECT_TIMEOUT,
+        GlobalRestTemplateCustomizer.IO_TIMEOUT
+    );
+  }
+
+  public GlobalWebClientCustomizer(
+      HttpClient httpClient, Duration connectTimeout, Duration ioTimeout
+  ) {
+    this.httpClient = httpClient;
+    this.connectTimeout = connectTimeout;
+    this.ioTimeout = ioTimeout;
+  }
+
+  public static HttpClient setTimeouts(
+      HttpClient httpClient, Duration connectTimeout, Duration ioTimeout
+  ) {
+    return httpClient
+        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+        .responseTimeout(ioTimeout);
+  }
+
+  @Override
+  public void customize(WebClient.Builder builder) {
+    builder
+        .clientConnector(new ReactorClientHttpConnector(setTimeouts(
+            httpClient,
+            connectTimeout,
+            ioTimeout
+        )))
+        .codecs(c -> c.defaultCodecs().maxInMemorySize(MAX_IN_MEMORY_SIZE));
+  }
+
+}
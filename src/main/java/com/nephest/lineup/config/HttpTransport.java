@@ -0,0 +1,18 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+public enum HttpTransport {
+
+  /**
+   * A new connection for every request, closed after the response is received.
+   */
+  SIMPLE,
+
+  /**
+   * Bounded keep-alive connection pool with idle eviction.
+   */
+  POOLED
+
+}
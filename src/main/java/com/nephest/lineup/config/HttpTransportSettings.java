@@ -0,0 +1,145 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * <p>
+ * Outbound HTTP transport settings. Reactor Netty keeps a separate pool for every remote
+ * address, so {@code maxConnections} and {@code pendingAcquireMaxCount} are per-route limits.
+ * Pool stats are published as {@code reactor.netty.connection.provider.*} metrics.
+ * </p>
+ */
+@Component
+public class HttpTransportSettings {
+
+  public static final Pattern URI_ID_PATTERN = Pattern.compile("[\\d,]+");
+  public static final String URI_ID_REPLACEMENT = "{}";
+
+  private final HttpTransport transport;
+  private final int maxConnections;
+  private final int pendingAcquireMaxCount;
+  private final Duration pendingAcquireTimeout;
+  private final Duration maxIdleTime;
+  private final Duration maxLifeTime;
+  private final Duration evictionInterval;
+  private final boolean compress;
+  private final boolean http2;
+
+  @Autowired
+  public HttpTransportSettings(
+      @Value("${http.transport:POOLED}") HttpTransport transport,
+      @Value("${http.pool.max-connections:50}") int maxConnections,
+      @Value("${http.pool.pending-acquire-max-count:500}") int pendingAcquireMaxCount,
+      @Value("${http.pool.pending-acquire-timeout:PT10S}") Duration pendingAcquireTimeout,
+      @Value("${http.pool.max-idle-time:PT30S}") Duration maxIdleTime,
+      @Value("${http.pool.max-life-time:PT10M}") Duration maxLifeTime,
+      @Value("${http.pool.eviction-interval:PT30S}") Duration evictionInterval,
+      @Value("${http.compress:true}") boolean compress,
+      @Value("${http.http2:false}") boolean http2
+  ) {
+    this.transport = transport;
+    this.maxConnections = maxConnections;
+    this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+    this.pendingAcquireTimeout = pendingAcquireTimeout;
+    this.maxIdleTime = maxIdleTime;
+    this.maxLifeTime = maxLifeTime;
+    this.evictionInterval = evictionInterval;
+    this.compress = compress;
+    this.http2 = http2;
+  }
+
+  public ConnectionProvider createConnectionProvider(String name) {
+    if (transport == HttpTransport.SIMPLE) {
+      return ConnectionProvider.newConnection();
+    }
+
+    return configurePool(ConnectionProvider.builder(name)).build();
+  }
+
+  /**
+   * <p>Applies {@code http.pool.*} limits to the builder.</p>
+   *
+   * @param builder connection provider builder
+   * @return configured builder
+   */
+  public ConnectionProvider.Builder configurePool(ConnectionProvider.Builder builder) {
+    return builder
+        .maxConnections(maxConnections)
+        .pendingAcquireMaxCount(pendingAcquireMaxCount)
+        .pendingAcquireTimeout(pendingAcquireTimeout)
+        .maxIdleTime(maxIdleTime)
+        .maxLifeTime(maxLifeTime)
+        .evictInBackground(evictionInterval)
+        .metrics(true);
+  }
+
+  /**
+   * <p>
+   * Creates a client that uses the supplied {@code ConnectionProvider}. Gzip/deflate responses
+   * are requested and decoded when compression is enabled. HTTP/2 is negotiated via ALPN when
+   * enabled, HTTP/1.1 is used as a fallback. Connect, TLS handshake, and response times are
+   * published as {@code reactor.netty.http.client.*} metrics, ids are removed from the uri tag
+   * to keep its cardinality low.
+   * </p>
+   *
+   * @param connectionProvider connection provider
+   * @return configured client
+   */
+  public HttpClient createHttpClient(ConnectionProvider connectionProvider) {
+    HttpClient client = HttpClient.create(connectionProvider)
+        .keepAlive(transport == HttpTransport.POOLED)
+        .compress(compress)
+        .metrics(true, uri -> URI_ID_PATTERN.matcher(uri).replaceAll(URI_ID_REPLACEMENT));
+    if (http2) {
+      client = client.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+    }
+    return client;
+  }
+
+  public HttpTransport getTransport() {
+    return transport;
+  }
+
+  public int getMaxConnections() {
+    return maxConnections;
+  }
+
+  public int getPendingAcquireMaxCount() {
+    return pendingAcquireMaxCount;
+  }
+
+  public Duration getPendingAcquireTimeout() {
+    return pendingAcquireTimeout;
+  }
+
+  public Duration getMaxIdleTime() {
+    return maxIdleTime;
+  }
+
+  public Duration getMaxLifeTime() {
+    return maxLifeTime;
+  }
+
+  public Duration getEvictionInterval() {
+    return evictionInterval;
+  }
+
+  public boolean isCompress() {
+    return compress;
+  }
+
+  public boolean isHttp2() {
+    return http2;
+  }
+
+}
@@ -0,0 +1,86 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ * SC2 Pulse client settings. Batching is disabled by default, when enabled, lookups are
+ * delayed by up to {@code batchWindow} and merged with concurrent lookups of other callers.
+ * Requests with more than {@code chunkSize} ids are split into chunks, up to
+ * {@code chunkParallelism} chunks of the same request are fetched concurrently.
+ * </p>
+ */
+@Component
+public class PulseApiSettings {
+
+  private final long characterCacheMaxSize;
+  private final Duration characterCacheTtl;
+  private final boolean batchEnabled;
+  private final Duration batchWindow;
+  private final int batchMaxSize;
+  private final int chunkSize;
+  private final int chunkParallelism;
+
+  @Autowired
+  public PulseApiSettings(
+      @Value("${pulse.cache.character.max-size:10000}") long characterCacheMaxSize,
+      @Value("${pulse.cache.character.ttl:PT6H}") Duration characterCacheTtl,
+      @Value("${pulse.batch.enabled:false}") boolean batchEnabled,
+      @Value("${pulse.batch.window:PT0.015S}") Duration batchWindow,
+      @Value("${pulse.batch.max-size:100}") int batchMaxSize,
+      @Value("${pulse.chunk.size:100}") int chunkSize,
+      @Value("${pulse.chunk.parallelism:4}") int chunkParallelism
+  ) {
+    if (batchMaxSize < 1) {
+      throw new IllegalArgumentException("Invalid batch max size: " + batchMaxSize);
+    }
+    if (chunkSize < 1) {
+      throw new IllegalArgumentException("Invalid chunk size: " + chunkSize);
+    }
+    if (chunkParallelism < 1) {
+      throw new IllegalArgumentException("Invalid chunk parallelism: " + chunkParallelism);
+    }
+    this.characterCacheMaxSize = characterCacheMaxSize;
+    this.characterCacheTtl = characterCacheTtl;
+    this.batchEnabled = batchEnabled;
+    this.batchWindow = batchWindow;
+    this.batchMaxSize = batchMaxSize;
+    this.chunkSize = chunkSize;
+    this.chunkParallelism = chunkParallelism;
+  }
+
+  public long getCharacterCacheMaxSize() {
+    return characterCacheMaxSize;
+  }
+
+  public Duration getCharacterCacheTtl() {
+    return characterCacheTtl;
+  }
+
+  public boolean isBatchEnabled() {
+    return batchEnabled;
+  }
+
+  public Duration getBatchWindow() {
+    return batchWindow;
+  }
+
+  public int getBatchMaxSize() {
+    return batchMaxSize;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public int getChunkParallelism() {
+    return chunkParallelism;
+  }
+
+}
@@ -0,0 +1,89 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ * SC2 Pulse fault tolerance settings. The circuit breaker opens when the failure rate or the
+ * slow call rate of the last {@code windowSize} calls exceeds the threshold, calls fail fast
+ * while it's open. The bulkhead limits concurrent outbound calls, excess calls are rejected
+ * immediately. Last known data is served for failed calls if it's not older than
+ * {@code staleTtl}.
+ * </p>
+ */
+@Component
+public class PulseResilienceSettings {
+
+  private final float failureRateThreshold;
+  private final float slowCallRateThreshold;
+  private final Duration slowCallDuration;
+  private final int windowSize;
+  private final int minimumCalls;
+  private final Duration openDuration;
+  private final int maxConcurrentCalls;
+  private final long staleMaxSize;
+  private final Duration staleTtl;
+
+  @Autowired
+  public PulseResilienceSettings(
+      @Value("${pulse.circuit-breaker.failure-rate-threshold:50}") float failureRateThreshold,
+      @Value("${pulse.circuit-breaker.slow-call-rate-threshold:50}") float slowCallRateThreshold,
+      @Value("${pulse.circuit-breaker.slow-call-duration:PT3S}") Duration slowCallDuration,
+      @Value("${pulse.circuit-breaker.window-size:20}") int windowSize,
+      @Value("${pulse.circuit-breaker.minimum-calls:10}") int minimumCalls,
+      @Value("${pulse.circuit-breaker.open-duration:PT30S}") Duration openDuration,
+      @Value("${pulse.bulkhead.max-concurrent-calls:20}") int maxConcurrentCalls,
+      @Value("${pulse.stale.max-size:10000}") long staleMaxSize,
+      @Value("${pulse.stale.ttl:P1D}") Duration staleTtl
+  ) {
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.slowCallDuration = slowCallDuration;
+    this.windowSize = windowSize;
+    this.minimumCalls = minimumCalls;
+    this.openDuration = openDuration;
+    this.maxConcurrentCalls = maxConcurrentCalls;
+    this.staleMaxSize = staleMaxSize;
+    this.staleTtl = staleTtl;
+  }
+
+  public CircuitBreaker createCircuitBreaker(String name) {
+    return CircuitBreaker.of(name, CircuitBreakerConfig.custom()
+        .failureRateThreshold(failureRateThreshold)
+        .slowCallRateThreshold(slowCallRateThreshold)
+        .slowCallDurationThreshold(slowCallDuration)
+        .slidingWindowSize(windowSize)
+        .minimumNumberOfCalls(minimumCalls)
+        .waitDurationInOpenState(openDuration)
+        //rejected calls say nothing about the health of the remote service
+        .ignoreExceptions(BulkheadFullException.class)
+        .build());
+  }
+
+  public Bulkhead createBulkhead(String name) {
+    return Bulkhead.of(name, BulkheadConfig.custom()
+        .maxConcurrentCalls(maxConcurrentCalls)
+        .maxWaitDuration(Duration.ZERO)
+        .build());
+  }
+
+  public long getStaleMaxSize() {
+    return staleMaxSize;
+  }
+
+  public Duration getStaleTtl() {
+    return staleTtl;
+  }
+
+}
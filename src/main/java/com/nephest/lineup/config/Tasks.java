@@ -3,7 +3,7 @@
 
 package com.nephest.lineup.config;
 
-import com.nephest.lineup.data.repository.LineupRepository;
+import com.nephest.lineup.service.LineupExpiryService;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import org.slf4j.Logger;
@@ -17,16 +17,16 @@ public class Tasks {
 
   public static final Duration OLD_LINEUP_OFFSET = Duration.ofDays(1);
   private static final Logger LOG = LoggerFactory.getLogger(Tasks.class);
-  private final LineupRepository lineupRepository;
+  private final LineupExpiryService lineupExpiryService;
 
   @Autowired
-  public Tasks(LineupRepository lineupRepository) {
-    this.lineupRepository = lineupRepository;
+  public Tasks(LineupExpiryService lineupExpiryService) {
+    this.lineupExpiryService = lineupExpiryService;
   }
 
   @Scheduled(cron = "0 */10 * * * *")
   public void removeOldLineups() {
-    int removed = lineupRepository.removeByRevealAtIsBefore(OffsetDateTime.now()
+    int removed = lineupExpiryService.removeRevealedBefore(OffsetDateTime.now()
         .minus(OLD_LINEUP_OFFSET));
     if (removed > 0) {
       LOG.info("Removed {} old lineups", removed);
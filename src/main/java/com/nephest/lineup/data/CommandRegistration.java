@@ -0,0 +1,100 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.data;
+
+import java.time.OffsetDateTime;
+import java.util.Objects;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+/**
+ * <p>
+ * Hash of discord commands that were registered in a scope(global or guild) by a bot. Used to
+ * skip registration when commands are unchanged.
+ * </p>
+ */
+@Entity
+public class CommandRegistration {
+
+  public static final int MAX_SCOPE_LENGTH = 100;
+  public static final int HASH_LENGTH = 64;
+
+  @Id
+  @Size(max = MAX_SCOPE_LENGTH)
+  private String scope;
+
+  @NotNull
+  @Size(min = HASH_LENGTH, max = HASH_LENGTH)
+  private String hash;
+
+  @NotNull
+  private OffsetDateTime registeredAt;
+
+  public CommandRegistration() {
+  }
+
+  public CommandRegistration(String scope, String hash, OffsetDateTime registeredAt) {
+    this.scope = scope;
+    this.hash = hash;
+    this.registeredAt = registeredAt;
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(getScope());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof CommandRegistration)) {
+      return false;
+    }
+    CommandRegistration other = (CommandRegistration) o;
+    return Objects.equals(getScope(), other.getScope());
+  }
+
+  @Override
+  public String toString() {
+    return "CommandRegistration{"
+        + "scope='"
+        + scope
+        + '\''
+        + ", hash='"
+        + hash
+        + '\''
+        + ", registeredAt="
+        + registeredAt
+        + '}';
+  }
+
+  public String getScope() {
+    return scope;
+  }
+
+  public void setScope(String scope) {
+    this.scope = scope;
+  }
+
+  public String getHash() {
+    return hash;
+  }
+
+  public void setHash(String hash) {
+    this.hash = hash;
+  }
+
+  public OffsetDateTime getRegisteredAt() {
+    return registeredAt;
+  }
+
+  public void setRegisteredAt(OffsetDateTime registeredAt) {
+    this.registeredAt = registeredAt;
+  }
+
+}
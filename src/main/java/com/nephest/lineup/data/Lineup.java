@@ -15,6 +15,8 @@ import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.Index;
 import javax.persistence.ManyToOne;
+import javax.persistence.NamedAttributeNode;
+import javax.persistence.NamedEntityGraph;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 import javax.validation.constraints.Max;
@@ -22,6 +24,13 @@ import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 @Entity
+@NamedEntityGraph(
+    name = Lineup.PLAYERS_GRAPH,
+    attributeNodes = {
+        @NamedAttributeNode("ruleSet"),
+        @NamedAttributeNode("players")
+    }
+)
 @Table(
     indexes = {
         @Index(name = "ix_lineup_reveal_at", columnList = "revealAt")
@@ -29,12 +38,14 @@ import javax.validation.constraints.NotNull;
 )
 public class Lineup {
 
+  public static final String PLAYERS_GRAPH = "Lineup.players";
+
   @Id
   @GeneratedValue
   private UUID id;
 
   @NotNull
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   private RuleSet ruleSet;
 
   @NotNull
@@ -49,7 +60,7 @@ public class Lineup {
   @OneToMany(
       cascade = {
           CascadeType.ALL
-      }, orphanRemoval = true, fetch = FetchType.EAGER, mappedBy = "lineup")
+      }, orphanRemoval = true, fetch = FetchType.LAZY, mappedBy = "lineup")
   private List<Player> players = new ArrayList<>();
 
   public Lineup() {
@@ -88,13 +99,11 @@ public class Lineup {
         + "id="
         + id
         + ", ruleSet="
-        + ruleSet
+        + (ruleSet == null ? null : ruleSet.getId())
         + ", length="
         + length
         + ", revealAt="
         + revealAt
-        + ", players="
-        + players
         + '}';
   }
 
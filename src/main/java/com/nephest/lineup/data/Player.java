@@ -4,6 +4,7 @@
 package com.nephest.lineup.data;
 
 import java.util.Objects;
+import javax.persistence.Embedded;
 import javax.persistence.Entity;
 import javax.persistence.Enumerated;
 import javax.persistence.GeneratedValue;
@@ -46,6 +47,9 @@ public class Player {
   @Enumerated
   private Race race;
 
+  @Embedded
+  private PlayerSnapshot snapshot;
+
   public Player() {
   }
 
@@ -145,4 +149,19 @@ public class Player {
     this.race = race;
   }
 
+  /**
+   * <p>
+   * Pulse stats captured when the player was verified. Null for non-pulse players.
+   * </p>
+   *
+   * @return snapshot, nullable
+   */
+  public PlayerSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  public void setSnapshot(PlayerSnapshot snapshot) {
+    this.snapshot = snapshot;
+  }
+
 }
@@ -0,0 +1,144 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.data;
+
+import com.nephest.lineup.data.pulse.PlayerCharacter;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import java.time.OffsetDateTime;
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import javax.persistence.Enumerated;
+
+/**
+ * <p>
+ * Pulse stats that were used to verify a player. Summary fields are null if the player had
+ * no summary, i.e. was inactive. Character fields are null if the character was unavailable.
+ * </p>
+ */
+@Embeddable
+public class PlayerSnapshot {
+
+  @Column(name = "snapshot_captured_at")
+  private OffsetDateTime capturedAt;
+
+  @Column(name = "snapshot_games")
+  private Integer games;
+
+  @Column(name = "snapshot_rating_avg")
+  private Integer ratingAvg;
+
+  @Column(name = "snapshot_rating_max")
+  private Integer ratingMax;
+
+  @Column(name = "snapshot_rating_last")
+  private Integer ratingLast;
+
+  @Column(name = "snapshot_character_name")
+  private String characterName;
+
+  @Enumerated
+  @Column(name = "snapshot_character_region")
+  private Region characterRegion;
+
+  public PlayerSnapshot() {
+  }
+
+  public PlayerSnapshot(
+      OffsetDateTime capturedAt, PlayerSummary summary, PlayerCharacter character
+  ) {
+    this.capturedAt = capturedAt;
+    if (summary != null) {
+      this.games = summary.getGames();
+      this.ratingAvg = summary.getRatingAvg();
+      this.ratingMax = summary.getRatingMax();
+      this.ratingLast = summary.getRatingLast();
+    }
+    if (character != null) {
+      this.characterName = character.getName();
+      this.characterRegion = character.getRegion();
+    }
+  }
+
+  /**
+   * <p>Restores the summary of the snapshot owner.</p>
+   *
+   * @param pulseId pulse character id
+   * @param race    player race
+   * @return summary, or null if the player had no summary
+   */
+  public PlayerSummary toSummary(Long pulseId, Race race) {
+    return games == null
+        ? null
+        : new PlayerSummary(pulseId, race, games, ratingAvg, ratingMax, ratingLast, null);
+  }
+
+  /**
+   * <p>Restores the character of the snapshot owner. Only the name and region are restored.</p>
+   *
+   * @param pulseId pulse character id
+   * @return character, or null if the character was unavailable
+   */
+  public PlayerCharacter toCharacter(Long pulseId) {
+    return characterName == null
+        ? null
+        : new PlayerCharacter(pulseId, null, characterRegion, null, null, characterName, null);
+  }
+
+  public OffsetDateTime getCapturedAt() {
+    return capturedAt;
+  }
+
+  public void setCapturedAt(OffsetDateTime capturedAt) {
+    this.capturedAt = capturedAt;
+  }
+
+  public Integer getGames() {
+    return games;
+  }
+
+  public void setGames(Integer games) {
+    this.games = games;
+  }
+
+  public Integer getRatingAvg() {
+    return ratingAvg;
+  }
+
+  public void setRatingAvg(Integer ratingAvg) {
+    this.ratingAvg = ratingAvg;
+  }
+
+  public Integer getRatingMax() {
+    return ratingMax;
+  }
+
+  public void setRatingMax(Integer ratingMax) {
+    this.ratingMax = ratingMax;
+  }
+
+  public Integer getRatingLast() {
+    return ratingLast;
+  }
+
+  public void setRatingLast(Integer ratingLast) {
+    this.ratingLast = ratingLast;
+  }
+
+  public String getCharacterName() {
+    return characterName;
+  }
+
+  public void setCharacterName(String characterName) {
+    this.characterName = characterName;
+  }
+
+  public Region getCharacterRegion() {
+    return characterRegion;
+  }
+
+  public void setCharacterRegion(Region characterRegion) {
+    this.characterRegion = characterRegion;
+  }
+
+}
@@ -3,6 +3,7 @@
 
 package com.nephest.lineup.data.pulse;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.nephest.lineup.data.Region;
 import javax.validation.constraints.NotNull;
 
@@ -28,6 +29,10 @@ public class PlayerCharacter {
 
   private Integer clanId;
 
+  //set when the value is served from the last known data because pulse is unavailable
+  @JsonIgnore
+  private boolean stale;
+
   public PlayerCharacter() {
   }
 
@@ -105,4 +110,12 @@ public class PlayerCharacter {
     this.clanId = clanId;
   }
 
+  public boolean isStale() {
+    return stale;
+  }
+
+  public void setStale(boolean stale) {
+    this.stale = stale;
+  }
+
 }
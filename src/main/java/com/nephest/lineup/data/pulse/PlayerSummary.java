@@ -3,6 +3,7 @@
 
 package com.nephest.lineup.data.pulse;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.nephest.lineup.data.Race;
 import javax.validation.constraints.NotNull;
 
@@ -28,6 +29,10 @@ public class PlayerSummary {
 
   private Integer globalRankLast;
 
+  //set when the value is served from the last known data because pulse is unavailable
+  @JsonIgnore
+  private boolean stale;
+
   public PlayerSummary() {
   }
 
@@ -105,4 +110,12 @@ public class PlayerSummary {
     this.globalRankLast = globalRankLast;
   }
 
+  public boolean isStale() {
+    return stale;
+  }
+
+  public void setStale(boolean stale) {
+    this.stale = stale;
+  }
+
 }
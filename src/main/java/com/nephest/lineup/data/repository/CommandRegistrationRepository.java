@@ -0,0 +1,12 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.data.repository;
+
+import com.nephest.lineup.data.CommandRegistration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface CommandRegistrationRepository extends JpaRepository<CommandRegistration, String> {
+}
@@ -5,15 +5,53 @@ package com.nephest.lineup.data.repository;
 
 import com.nephest.lineup.data.Lineup;
 import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Transactional;
 
 @Repository
 public interface LineupRepository extends JpaRepository<Lineup, UUID> {
 
-  @Transactional
-  int removeByRevealAtIsBefore(OffsetDateTime revealAt);
+  /**
+   * <p>Loads a lineup with its ruleset and players in a single query.</p>
+   *
+   * @param id lineup id
+   * @return lineup
+   */
+  @EntityGraph(Lineup.PLAYERS_GRAPH)
+  Optional<Lineup> findWithPlayersById(UUID id);
+
+  /**
+   * <p>Finds ids of lineups revealed before {@code revealAt}, oldest first.</p>
+   *
+   * @param revealAt reveal date
+   * @param pageable page, ordering is ignored
+   * @return lineup ids
+   */
+  @Query("SELECT l.id FROM Lineup l WHERE l.revealAt < :revealAt ORDER BY l.revealAt")
+  List<UUID> findIdsByRevealAtBefore(
+      @Param("revealAt") OffsetDateTime revealAt, Pageable pageable
+  );
+
+  /**
+   * <p>
+   * Removes lineups with a single statement. The persistence context is bypassed, players
+   * must be removed first.
+   * </p>
+   *
+   * @param ids lineup ids
+   * @return number of removed lineups
+   */
+  @Modifying
+  @Query("DELETE FROM Lineup l WHERE l.id IN :ids")
+  int removeByIds(@Param("ids") Collection<UUID> ids);
 
 }
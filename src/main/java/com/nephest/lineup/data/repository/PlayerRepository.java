@@ -4,9 +4,25 @@
 package com.nephest.lineup.data.repository;
 
 import com.nephest.lineup.data.Player;
+import java.util.Collection;
+import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface PlayerRepository extends JpaRepository<Player, Long> {
+
+  /**
+   * <p>Removes players of lineups with a single statement.</p>
+   *
+   * @param lineupIds lineup ids
+   * @return number of removed players
+   */
+  @Modifying
+  @Query("DELETE FROM Player p WHERE p.lineup.id IN :lineupIds")
+  int removeByLineupIds(@Param("lineupIds") Collection<UUID> lineupIds);
+
 }
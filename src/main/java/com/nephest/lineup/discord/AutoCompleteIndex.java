@@ -0,0 +1,117 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.RuleSet;
+import discord4j.core.event.domain.interaction.ChatInputAutoCompleteEvent;
+import discord4j.core.object.command.ApplicationCommandInteractionOptionValue;
+import discord4j.discordjson.json.ApplicationCommandOptionChoiceData;
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ * Autocomplete suggestions of lineup and ruleset ids. Ids are indexed when discord users create
+ * or use lineups and rulesets, so suggestions are served from memory without DB calls.
+ * </p>
+ */
+@Component
+public class AutoCompleteIndex {
+
+  public static final int MAX_CHOICE_NAME_LENGTH = 100;
+
+  private final PrefixIndex<ApplicationCommandOptionChoiceData> lineups;
+  private final PrefixIndex<ApplicationCommandOptionChoiceData> ruleSets;
+
+  @Autowired
+  public AutoCompleteIndex(
+      @Value("${discord.autocomplete.max-users:10000}") long maxUsers,
+      @Value("${discord.autocomplete.max-entries:25}") int maxEntries,
+      @Value("${discord.autocomplete.ttl:P7D}") Duration ttl
+  ) {
+    this.lineups = new PrefixIndex<>(maxUsers, maxEntries, ttl);
+    this.ruleSets = new PrefixIndex<>(maxUsers, maxEntries, ttl);
+  }
+
+  public void addLineup(Long discordUserId, Lineup lineup) {
+    if (lineup.getId() == null) {
+      return;
+    }
+    String id = lineup.getId().toString();
+    String name = id + " | " + lineup.getRuleSet().getName() + ", " + lineup.getLength()
+        + " slots";
+    lineups.put(discordUserId, id, createChoice(name, id));
+  }
+
+  public void addRuleSet(Long discordUserId, RuleSet ruleSet) {
+    if (ruleSet.getId() == null) {
+      return;
+    }
+    String id = String.valueOf(ruleSet.getId());
+    ruleSets.put(discordUserId, id, createChoice(id + " | " + ruleSet.getName(), ruleSet.getId()));
+  }
+
+  public List<ApplicationCommandOptionChoiceData> findLineups(
+      Long discordUserId, String prefix, int limit
+  ) {
+    return lineups.find(discordUserId, prefix, limit);
+  }
+
+  public List<ApplicationCommandOptionChoiceData> findRuleSets(
+      Long discordUserId, String prefix, int limit
+  ) {
+    return ruleSets.find(discordUserId, prefix, limit);
+  }
+
+  /**
+   * <p>Suggests lineup ids that start with the focused option value.</p>
+   *
+   * @param evt   autocomplete event
+   * @param limit max number of suggestions
+   * @return suggestions, most recent first
+   */
+  public List<ApplicationCommandOptionChoiceData> suggestLineups(
+      ChatInputAutoCompleteEvent evt, int limit
+  ) {
+    return findLineups(getUserId(evt), getFocusedValue(evt), limit);
+  }
+
+  /**
+   * <p>Suggests ruleset ids that start with the focused option value.</p>
+   *
+   * @param evt   autocomplete event
+   * @param limit max number of suggestions
+   * @return suggestions, most recent first
+   */
+  public List<ApplicationCommandOptionChoiceData> suggestRuleSets(
+      ChatInputAutoCompleteEvent evt, int limit
+  ) {
+    return findRuleSets(getUserId(evt), getFocusedValue(evt), limit);
+  }
+
+  private static Long getUserId(ChatInputAutoCompleteEvent evt) {
+    return evt.getInteraction().getUser().getId().asLong();
+  }
+
+  private static String getFocusedValue(ChatInputAutoCompleteEvent evt) {
+    return evt.getFocusedOption()
+        .getValue()
+        .map(ApplicationCommandInteractionOptionValue::getRaw)
+        .orElse("");
+  }
+
+  private static ApplicationCommandOptionChoiceData createChoice(String name, Object value) {
+    return ApplicationCommandOptionChoiceData.builder()
+        .name(name.length() > MAX_CHOICE_NAME_LENGTH
+            ? name.substring(0, MAX_CHOICE_NAME_LENGTH)
+            : name)
+        .value(value)
+        .build();
+  }
+
+}
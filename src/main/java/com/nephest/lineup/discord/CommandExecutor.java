@@ -0,0 +1,126 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * <p>
+ * Executes discord commands on a dedicated scheduler. Every command has its own concurrency
+ * limit, commands that exceed it are rejected with {@link RejectedExecutionException} instead
+ * of occupying scheduler threads.
+ * </p>
+ */
+@Service
+public class CommandExecutor {
+
+  public static final String QUEUE_WAIT_METRIC_NAME = "discord.command.queue.wait";
+  public static final String ACTIVE_WORKERS_METRIC_NAME = "discord.command.workers.active";
+  public static final String IN_FLIGHT_METRIC_NAME = "discord.command.in-flight";
+  public static final String REJECTED_METRIC_NAME = "discord.command.rejected";
+
+  private final Scheduler scheduler;
+  private final MeterRegistry meterRegistry;
+  private final AtomicInteger activeWorkers = new AtomicInteger();
+  private final Map<String, CommandStats> stats = new ConcurrentHashMap<>();
+
+  @Autowired
+  public CommandExecutor(
+      @Qualifier("discordCommandScheduler") Scheduler scheduler, MeterRegistry meterRegistry
+  ) {
+    this.scheduler = scheduler;
+    this.meterRegistry = meterRegistry;
+    Gauge.builder(ACTIVE_WORKERS_METRIC_NAME, activeWorkers, AtomicInteger::get)
+        .description("Discord commands that are currently executing on the command scheduler")
+        .register(meterRegistry);
+  }
+
+  /**
+   * <p>
+   * Subscribes to the task on the command scheduler. The task supplier is called on a scheduler
+   * thread, blocking calls made by the supplier don't block the caller. A permit is held until
+   * the returned {@code Mono} is terminated or cancelled. The command is counted as an active
+   * worker from the moment it is picked up by the scheduler until the task {@code Mono} is
+   * terminated or cancelled, so asynchronous work of the task is counted too.
+   * </p>
+   *
+   * @param name           command name, used as a metric tag
+   * @param maxConcurrency max number of concurrent executions of this command
+   * @param task           command task
+   * @param <T>            result type
+   * @return task result, or {@link RejectedExecutionException} if the concurrency limit is
+   *     exceeded or the scheduler queue is full
+   */
+  public <T> Mono<T> execute(String name, int maxConcurrency, Supplier<? extends Mono<T>> task) {
+    return Mono.defer(() -> {
+      CommandStats commandStats = stats.computeIfAbsent(name, this::createStats);
+      if (commandStats.inFlight.incrementAndGet() > maxConcurrency) {
+        commandStats.inFlight.decrementAndGet();
+        commandStats.rejected.increment();
+        return Mono.error(new RejectedExecutionException(
+            "Command " + name + " has reached its concurrency limit: " + maxConcurrency));
+      }
+
+      long submittedAt = System.nanoTime();
+      return Mono.defer(() -> {
+        commandStats.queueWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+        activeWorkers.incrementAndGet();
+        return Mono.defer(task)
+            .doFinally(s -> activeWorkers.decrementAndGet());
+      })
+          .subscribeOn(scheduler)
+          .doOnError(RejectedExecutionException.class, e -> commandStats.rejected.increment())
+          .doFinally(s -> commandStats.inFlight.decrementAndGet());
+    });
+  }
+
+  private CommandStats createStats(String name) {
+    AtomicInteger inFlight = new AtomicInteger();
+    Gauge.builder(IN_FLIGHT_METRIC_NAME, inFlight, AtomicInteger::get)
+        .tag("command", name)
+        .register(meterRegistry);
+    return new CommandStats(
+        inFlight,
+        Timer.builder(QUEUE_WAIT_METRIC_NAME).tag("command", name).register(meterRegistry),
+        Counter.builder(REJECTED_METRIC_NAME).tag("command", name).register(meterRegistry)
+    );
+  }
+
+  public Scheduler getScheduler() {
+    return scheduler;
+  }
+
+  public int getActiveWorkers() {
+    return activeWorkers.get();
+  }
+
+  private static final class CommandStats {
+
+    private final AtomicInteger inFlight;
+    private final Timer queueWait;
+    private final Counter rejected;
+
+    private CommandStats(AtomicInteger inFlight, Timer queueWait, Counter rejected) {
+      this.inFlight = inFlight;
+      this.queueWait = queueWait;
+      this.rejected = rejected;
+    }
+
+  }
+
+}
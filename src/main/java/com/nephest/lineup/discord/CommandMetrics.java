@@ -0,0 +1,70 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import com.nephest.lineup.discord.CommandTrace.Phase;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ * Interaction latency by command and {@link Phase phase}. Timers publish p50/p95/p99 and
+ * percentile histograms, so the same metrics can be used for SLOs and to find the phase that
+ * exceeds discord interaction deadlines.
+ * </p>
+ */
+@Component
+public class CommandMetrics {
+
+  public static final String PHASE_METRIC_NAME = "discord.command.phase";
+  public static final double[] PERCENTILES = new double[]{0.5, 0.95, 0.99};
+
+  private final MeterRegistry meterRegistry;
+  private final Map<String, Map<Phase, Timer>> timers = new ConcurrentHashMap<>();
+
+  @Autowired
+  public CommandMetrics(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * <p>Records all phases of the trace that were entered at least once.</p>
+   *
+   * @param command command name
+   * @param trace   finished trace
+   */
+  public void record(String command, CommandTrace trace) {
+    Map<Phase, Timer> commandTimers = timers.computeIfAbsent(command, this::createTimers);
+    for (Phase phase : Phase.values()) {
+      if (trace.isRecorded(phase)) {
+        commandTimers.get(phase).record(trace.getNanos(phase), TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  public Timer getTimer(String command, Phase phase) {
+    return timers.computeIfAbsent(command, this::createTimers).get(phase);
+  }
+
+  private Map<Phase, Timer> createTimers(String command) {
+    Map<Phase, Timer> commandTimers = new EnumMap<>(Phase.class);
+    for (Phase phase : Phase.values()) {
+      commandTimers.put(phase, Timer.builder(PHASE_METRIC_NAME)
+          .description("Discord interaction latency by phase")
+          .tag("command", command)
+          .tag("phase", phase.getTag())
+          .publishPercentiles(PERCENTILES)
+          .publishPercentileHistogram()
+          .register(meterRegistry));
+    }
+    return commandTimers;
+  }
+
+}
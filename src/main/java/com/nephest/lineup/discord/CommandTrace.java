@@ -0,0 +1,184 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Phase timings of a single discord interaction. Time is measured from event receipt. A phase
+ * can be entered several times, concurrent and nested executions of the same phase are counted
+ * once, so a phase never exceeds the wall time of the interaction. Services that don't have
+ * access to the trace can find it in the reactor context, see
+ * {@link #timeInContext(Phase, Mono)}.
+ * </p>
+ */
+public class CommandTrace {
+
+  public static final String CONTEXT_KEY = CommandTrace.class.getName();
+
+  public enum Phase {
+
+    /**
+     * Event receipt to {@code deferReply} acknowledgement.
+     */
+    ACK,
+    DB,
+    PULSE,
+    RENDER,
+    FOLLOWUP,
+    /**
+     * Event receipt to the end of the interaction.
+     */
+    TOTAL;
+
+    private final String tag = name().toLowerCase(Locale.ROOT);
+
+    public String getTag() {
+      return tag;
+    }
+
+  }
+
+  private final long startedAt;
+  private final long[] nanos = new long[Phase.values().length];
+  private final long[] activeSince = new long[Phase.values().length];
+  private final int[] active = new int[Phase.values().length];
+  private final boolean[] recorded = new boolean[Phase.values().length];
+
+  public CommandTrace() {
+    this(System.nanoTime());
+  }
+
+  public CommandTrace(long startedAt) {
+    this.startedAt = startedAt;
+  }
+
+  /**
+   * <p>Times {@code mono} if there is a trace in the subscriber context.</p>
+   *
+   * @param phase phase
+   * @param mono  timed mono
+   * @param <T>   result type
+   * @return timed mono, or {@code mono} if there is no trace in the subscriber context
+   */
+  public static <T> Mono<T> timeInContext(Phase phase, Mono<T> mono) {
+    return Mono.deferContextual(ctx -> ctx.<CommandTrace>getOrEmpty(CONTEXT_KEY)
+        .map(trace -> trace.time(phase, mono))
+        .orElse(mono));
+  }
+
+  /**
+   * <p>Records the time that passed since event receipt.</p>
+   *
+   * @param phase phase
+   */
+  public synchronized void mark(Phase phase) {
+    nanos[phase.ordinal()] += System.nanoTime() - startedAt;
+    recorded[phase.ordinal()] = true;
+  }
+
+  public <T> T record(Phase phase, Supplier<T> supplier) {
+    start(phase);
+    try {
+      return supplier.get();
+    } finally {
+      stop(phase);
+    }
+  }
+
+  public void record(Phase phase, Runnable runnable) {
+    record(phase, () -> {
+      runnable.run();
+      return null;
+    });
+  }
+
+  /**
+   * <p>Times {@code mono} from subscription to termination or cancellation.</p>
+   *
+   * @param phase phase
+   * @param mono  timed mono
+   * @param <T>   result type
+   * @return timed mono
+   */
+  public <T> Mono<T> time(Phase phase, Mono<T> mono) {
+    return Mono.defer(() -> {
+      start(phase);
+      return mono;
+    })
+        .doFinally(s -> stop(phase));
+  }
+
+  /**
+   * <p>Wraps the conversion service, conversions are recorded as {@link Phase#RENDER}.</p>
+   *
+   * @param conversionService conversion service to wrap
+   * @return timed conversion service
+   */
+  public ConversionService render(ConversionService conversionService) {
+    return new RenderConversionService(conversionService);
+  }
+
+  private synchronized void start(Phase phase) {
+    if (active[phase.ordinal()]++ == 0) {
+      activeSince[phase.ordinal()] = System.nanoTime();
+    }
+  }
+
+  private synchronized void stop(Phase phase) {
+    if (--active[phase.ordinal()] == 0) {
+      nanos[phase.ordinal()] += System.nanoTime() - activeSince[phase.ordinal()];
+      recorded[phase.ordinal()] = true;
+    }
+  }
+
+  public synchronized boolean isRecorded(Phase phase) {
+    return recorded[phase.ordinal()];
+  }
+
+  public synchronized long getNanos(Phase phase) {
+    return nanos[phase.ordinal()];
+  }
+
+  private final class RenderConversionService implements ConversionService {
+
+    private final ConversionService conversionService;
+
+    private RenderConversionService(ConversionService conversionService) {
+      this.conversionService = conversionService;
+    }
+
+    @Override
+    public boolean canConvert(Class<?> sourceType, Class<?> targetType) {
+      return conversionService.canConvert(sourceType, targetType);
+    }
+
+    @Override
+    public boolean canConvert(TypeDescriptor sourceType, TypeDescriptor targetType) {
+      return conversionService.canConvert(sourceType, targetType);
+    }
+
+    @Override
+    public <T> T convert(Object source, Class<T> targetType) {
+      return record(Phase.RENDER, () -> conversionService.convert(source, targetType));
+    }
+
+    @Override
+    public Object convert(
+        Object source, TypeDescriptor sourceType, TypeDescriptor targetType
+    ) {
+      return record(
+          Phase.RENDER,
+          () -> conversionService.convert(source, sourceType, targetType)
+      );
+    }
+
+  }
+
+}
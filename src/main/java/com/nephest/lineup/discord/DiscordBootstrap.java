@@ -3,13 +3,22 @@
 
 package com.nephest.lineup.discord;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.nephest.lineup.data.CommandRegistration;
 import com.nephest.lineup.data.Race;
 import com.nephest.lineup.data.Region;
+import com.nephest.lineup.data.repository.CommandRegistrationRepository;
 import com.nephest.lineup.discord.event.AutoComplete;
 import com.nephest.lineup.discord.event.DiscordApplicationCommand;
 import com.nephest.lineup.discord.event.NamedCommand;
 import com.nephest.lineup.discord.event.SlashCommand;
 import com.nephest.lineup.discord.event.UserCommand;
+import discord4j.common.JacksonResources;
+import discord4j.common.store.Store;
+import discord4j.common.store.impl.LocalStoreLayout;
 import discord4j.common.util.Snowflake;
 import discord4j.core.DiscordClientBuilder;
 import discord4j.core.GatewayDiscordClient;
@@ -18,23 +27,40 @@ import discord4j.core.event.domain.interaction.ChatInputAutoCompleteEvent;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import discord4j.core.event.domain.interaction.UserInteractionEvent;
 import discord4j.core.object.command.ApplicationCommand;
+import discord4j.core.object.command.ApplicationCommandInteraction;
 import discord4j.core.object.command.ApplicationCommandInteractionOption;
 import discord4j.core.object.command.ApplicationCommandInteractionOptionValue;
 import discord4j.core.object.entity.Member;
 import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.ResolvedMember;
+import discord4j.core.object.entity.User;
 import discord4j.core.object.presence.ClientActivity;
 import discord4j.core.object.presence.ClientPresence;
+import discord4j.core.retriever.EntityRetrievalStrategy;
+import discord4j.core.shard.GatewayBootstrap;
+import discord4j.core.shard.MemberRequestFilter;
+import discord4j.core.shard.ShardingStrategy;
 import discord4j.discordjson.json.ApplicationCommandData;
 import discord4j.discordjson.json.ApplicationCommandOptionChoiceData;
 import discord4j.discordjson.json.ApplicationCommandRequest;
 import discord4j.discordjson.json.ImmutableApplicationCommandRequest;
+import discord4j.gateway.GatewayOptions;
+import discord4j.gateway.intent.IntentSet;
 import discord4j.rest.RestClient;
 import discord4j.rest.http.client.ClientException;
 import discord4j.rest.service.ApplicationService;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import javax.persistence.EntityNotFoundException;
@@ -44,8 +70,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.stereotype.Service;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 @Service
 public class DiscordBootstrap {
@@ -62,6 +88,9 @@ public class DiscordBootstrap {
       + " Either a new slash command syntax has been deployed and discord haven't updated it "
       + "yet, or this is a bug. Discord updates their cache within 1 hour. Please report the bug "
       + "if the error persists, links are in the profile.";
+  public static final String
+      BUSY_MESSAGE
+      = "The bot is busy processing other commands. Please try again later.";
   public static final Map<Region, String> REGION_EMOJIS = Map.of(
       Region.US,
       "\uD83C\uDDFA\uD83C\uDDF8",
@@ -86,40 +115,75 @@ public class DiscordBootstrap {
           + "%1$s\n"
           + "```\n";
   private static final Logger LOG = LoggerFactory.getLogger(DiscordBootstrap.class);
+  private static final ObjectMapper COMMAND_OBJECT_MAPPER
+      = JacksonResources.create().getObjectMapper();
   private final Map<Race, String> raceEmojis;
+  private final Cache<String, String> displayNames;
 
   @Autowired
   public DiscordBootstrap(
-      @Value("#{${discord.race.emoji:{:}}}") Map<Race, String> raceEmojis
-
+      @Value("#{${discord.race.emoji:{:}}}") Map<Race, String> raceEmojis,
+      @Value("${discord.display-name.ttl:PT10M}") Duration displayNameTtl,
+      @Value("${discord.display-name.max-size:10000}") long displayNameMaxSize
   ) {
     this.raceEmojis = raceEmojis;
+    this.displayNames = Caffeine.newBuilder()
+        .expireAfterWrite(displayNameTtl)
+        .maximumSize(displayNameMaxSize)
+        .build();
   }
 
   public static GatewayDiscordClient load(
       List<SlashCommand> handlers,
       List<UserCommand> userInteractionHandlers,
       List<AutoComplete> autoCompleteHandlers,
+      CommandExecutor commandExecutor,
+      CommandMetrics commandMetrics,
+      CommandRegistrationRepository commandRegistrationRepository,
+      ShardingStrategy shardingStrategy,
+      boolean interactionsOnly,
+      ShardMonitor shardMonitor,
       String token,
       Long guild
   ) {
-    GatewayDiscordClient client = DiscordClientBuilder.create(token).build().login().block();
-
+    GatewayBootstrap<GatewayOptions> gateway = DiscordClientBuilder.create(token)
+        .build()
+        .gateway()
+        .setSharding(shardingStrategy);
+    if (interactionsOnly) {
+      configureInteractionsOnly(gateway);
+    }
+    GatewayDiscordClient client = gateway.login().block();
+    //subscribe before other listeners to receive buffered lifecycle events
+    shardMonitor.subscribe(client);
+
+    //bulk overwrite replaces all commands of a scope, so all command types are registered at once
+    List<ApplicationCommandRequest> reqs = new ArrayList<>();
+    handlers.forEach(c -> reqs.add(appendMetaOptions(c.generateCommandRequest()).build()));
+    userInteractionHandlers.forEach(c -> reqs.add(c.generateCommandRequest()
+        .type(ApplicationCommand.Type.USER.getValue())
+        .build()));
     registerCommands(
+        client.getRestClient(),
+        reqs,
+        guild,
+        getRegistrationScope(client.getSelfId(), guild),
+        commandRegistrationRepository
+    );
+
+    registerHandlers(
         handlers,
         ChatInputInteractionEvent.class,
-        ApplicationCommand.Type.CHAT_INPUT,
         client,
-        guild,
-        true
+        commandExecutor,
+        commandMetrics
     );
-    registerCommands(
+    registerHandlers(
         userInteractionHandlers,
         UserInteractionEvent.class,
-        ApplicationCommand.Type.USER,
         client,
-        guild,
-        false
+        commandExecutor,
+        commandMetrics
     );
     registerAutoCompleteHandlers(autoCompleteHandlers, client);
     client.updatePresence(ClientPresence.online(ClientActivity.watching(SC2_GAME_NAME))).block();
@@ -127,90 +191,164 @@ public class DiscordBootstrap {
     return client;
   }
 
+  /**
+   * <p>
+   * Configures the gateway to receive only what is required to handle interactions.
+   * Interactions are received without any intents, and they carry resolved users and members,
+   * so gateway entities are neither requested nor cached. Entities that are not available in
+   * interactions are fetched via REST.
+   * </p>
+   *
+   * @param gateway gateway to configure
+   * @return {@code gateway}
+   */
+  public static GatewayBootstrap<GatewayOptions> configureInteractionsOnly(
+      GatewayBootstrap<GatewayOptions> gateway
+  ) {
+    return gateway.setEnabledIntents(IntentSet.none())
+        .setStore(createStore(true))
+        .setMemberRequestFilter(MemberRequestFilter.none())
+        .setEntityRetrievalStrategy(EntityRetrievalStrategy.REST);
+  }
+
+  public static Store createStore(boolean interactionsOnly) {
+    return interactionsOnly ? Store.noOp() : Store.fromLayout(LocalStoreLayout.create());
+  }
+
   private static void registerAutoCompleteHandlers(
       Collection<? extends AutoComplete> handlers, GatewayDiscordClient client
   ) {
     Map<String, AutoComplete> handlerMap = handlers.stream()
         .collect(Collectors.toMap(NamedCommand::getCommandName, Function.identity()));
-    client.on(
-            ChatInputAutoCompleteEvent.class,
-            e -> e.respondWithSuggestions(handlerMap.get(e.getCommandName()).autoComplete(e))
-        )
-        .subscribe();
+    client.on(ChatInputAutoCompleteEvent.class, e -> autoComplete(handlerMap, e)).subscribe();
+  }
+
+  private static Mono<Void> autoComplete(
+      Map<String, AutoComplete> handlerMap, ChatInputAutoCompleteEvent evt
+  ) {
+    AutoComplete handler = handlerMap.get(evt.getCommandName());
+    if (handler == null) {
+      LOG.warn("Autocomplete handler not found: {}", evt.getCommandName());
+      return evt.respondWithSuggestions(List.of());
+    }
+    return Mono.defer(() -> evt.respondWithSuggestions(handler.autoComplete(evt)))
+        .onErrorResume(t -> {
+          LOG.error(t.getMessage(), t);
+          return Mono.empty();
+        });
   }
 
-  private static <T extends ApplicationCommandInteractionEvent> void registerCommands(
+  private static <T extends ApplicationCommandInteractionEvent> void registerHandlers(
       List<? extends DiscordApplicationCommand<T>> handlers,
       Class<T> clazz,
-      discord4j.core.object.command.ApplicationCommand.Type type,
       GatewayDiscordClient client,
-      Long guild,
-      boolean metaOptions
+      CommandExecutor commandExecutor,
+      CommandMetrics commandMetrics
   ) {
-    List<ApplicationCommandRequest> reqs = handlers.stream()
-        .map(c -> metaOptions
-            ? appendMetaOptions(c.generateCommandRequest()).build()
-            : c.generateCommandRequest().build())
-        .collect(Collectors.toList());
-    registerCommands(client.getRestClient(), reqs, guild, type);
-
     Map<String, DiscordApplicationCommand<T>> handlerMap = handlers.stream()
         .collect(Collectors.toMap(DiscordApplicationCommand::getCommandName, Function.identity()));
-    client.on(clazz, evt -> handle(handlerMap, evt)).subscribe();
+    client.on(clazz, evt -> handle(handlerMap, evt, commandExecutor, commandMetrics))
+        .subscribe();
+  }
+
+  public static String getRegistrationScope(Snowflake botId, Long guild) {
+    return botId.asString() + ":" + (guild == null ? "global" : "guild:" + guild);
   }
 
-  public static void registerCommands(
+  /**
+   * <p>
+   * Registers commands with discord. The hash of the last registered commands is saved for
+   * every scope, and discord is not called at all if the hash is unchanged. Otherwise, all
+   * commands of the scope are replaced with a single bulk overwrite call. Commands that are
+   * not in {@code cmds} are removed.
+   * </p>
+   *
+   * @param client     rest client
+   * @param cmds       all commands of the scope
+   * @param guild      guild id, commands are registered globally if null
+   * @param scope      registration scope, see {@link #getRegistrationScope(Snowflake, Long)}
+   * @param repository repository of previous registrations
+   * @return true if commands were registered, false if registration was skipped
+   */
+  public static boolean registerCommands(
       RestClient client,
       Collection<ApplicationCommandRequest> cmds,
       Long guild,
-      ApplicationCommand.Type type
+      String scope,
+      CommandRegistrationRepository repository
   ) {
-    Map<String, ApplicationCommandRequest> commands = cmds.stream()
-        .collect(Collectors.toMap(ApplicationCommandRequest::name, Function.identity()));
-    final ApplicationService applicationService = client.getApplicationService();
-    final long applicationId = client.getApplicationId().block();
-
-    //These are commands already registered with discord from previous runs from the bot.
-    Map<String, ApplicationCommandData> discordCommands = getDiscordCommands(
-        applicationService,
-        applicationId,
-        guild,
-        type
-    );
-
-    for (ApplicationCommandRequest request : commands.values()) {
-      if (!discordCommands.containsKey(request.name())) {
-        addCommand(applicationService, request, applicationId, guild);
-      }
+    String hash = hashCommands(cmds);
+    CommandRegistration registration = repository.findById(scope).orElse(null);
+    if (registration != null && registration.getHash().equals(hash)) {
+      LOG.info("Commands are unchanged, skipping registration: {}", scope);
+      return false;
     }
 
-    //Check if any commands have been deleted or changed.
-    for (ApplicationCommandData discordCommand : discordCommands.values()) {
-      long discordCommandId = Long.parseLong(discordCommand.id());
-      ApplicationCommandRequest command = commands.get(discordCommand.name());
-
-      if (command == null) {
-        //Removed, delete command
-        removeCommand(applicationService, discordCommand, applicationId, guild, discordCommandId);
-        continue; //Skip further processing on this command.
-      }
+    ApplicationService applicationService = client.getApplicationService();
+    long applicationId = client.getApplicationId().block();
+    List<ApplicationCommandRequest> requests = new ArrayList<>(cmds);
+    List<ApplicationCommandData> registered = guild == null
+        ? applicationService.bulkOverwriteGlobalApplicationCommand(applicationId, requests)
+            .collectList()
+            .block()
+        : applicationService.bulkOverwriteGuildApplicationCommand(applicationId, guild, requests)
+            .collectList()
+            .block();
+    repository.save(new CommandRegistration(scope, hash, OffsetDateTime.now()));
+    LOG.info("Registered {} commands: {}", registered.size(), scope);
+    return true;
+  }
 
-      //Check if the command has been changed and needs to be updated.
-      if (hasChanged(discordCommand, command)) {
-        updateCommand(applicationService, command, applicationId, guild, discordCommandId);
+  /**
+   * <p>
+   * Calculates a hash of command definitions. The hash doesn't depend on the order of
+   * commands.
+   * </p>
+   *
+   * @param cmds command definitions
+   * @return SHA-256 hex string
+   */
+  public static String hashCommands(Collection<ApplicationCommandRequest> cmds) {
+    List<ApplicationCommandRequest> sorted = cmds.stream()
+        .sorted(Comparator.comparing(ApplicationCommandRequest::name)
+            .thenComparing(c -> c.type().toOptional().orElse(1)))
+        .collect(Collectors.toList());
+    try {
+      byte[] json = COMMAND_OBJECT_MAPPER.writeValueAsBytes(sorted);
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+      StringBuilder sb = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
       }
+      return sb.toString();
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
     }
   }
 
   private static <T extends ApplicationCommandInteractionEvent> Mono<Message> handle(
-      Map<String, DiscordApplicationCommand<T>> handlerMap, T evt
+      Map<String, DiscordApplicationCommand<T>> handlerMap,
+      T evt,
+      CommandExecutor commandExecutor,
+      CommandMetrics commandMetrics
   ) {
+    CommandTrace trace = new CommandTrace();
     DiscordApplicationCommand<T> handler = handlerMap.get(evt.getCommandName());
     boolean ephemeral = getEphemeral(evt, handler);
     return evt.deferReply()
         .withEphemeral(ephemeral)
-        .then(Mono.defer(() -> handler.handle(evt)))
+        .doOnSuccess(v -> trace.mark(CommandTrace.Phase.ACK))
+        //blocking command calls must not block gateway threads
+        .then(commandExecutor.execute(
+            handler.getCommandName(),
+            handler.getMaxConcurrency(),
+            () -> handler.handle(evt, trace)
+        ))
         .onErrorResume((t) -> true, (t) -> {
+          if (t instanceof RejectedExecutionException) {
+            LOG.warn("Command {} is rejected: {}", evt.getCommandName(), t.getMessage());
+            return trace.time(CommandTrace.Phase.FOLLOWUP, evt.createFollowup(BUSY_MESSAGE));
+          }
           LOG.error(t.getMessage(), t);
           /*
               A client exception could happen because from the following reasons:
@@ -222,100 +360,19 @@ public class DiscordBootstrap {
            */
           return t instanceof ClientException
               ? Mono.empty()
-              : t instanceof EntityNotFoundException ? evt.createFollowup(
-                  "Entity with such id not found") : evt.createFollowup(UNEXPECTED_ERROR_MESSAGE);
+              : trace.time(CommandTrace.Phase.FOLLOWUP, evt.createFollowup(
+                  t instanceof EntityNotFoundException
+                      ? "Entity with such id not found"
+                      : UNEXPECTED_ERROR_MESSAGE));
+        })
+        //services time their calls by using the trace from the context
+        .contextWrite(Context.of(CommandTrace.CONTEXT_KEY, trace))
+        .doFinally(s -> {
+          trace.mark(CommandTrace.Phase.TOTAL);
+          commandMetrics.record(evt.getCommandName(), trace);
         });
   }
 
-  private static Map<String, ApplicationCommandData> getDiscordCommands(
-      ApplicationService applicationService, long appId, Long guild, ApplicationCommand.Type type
-  ) {
-    Flux<ApplicationCommandData> datas = guild == null
-        ? applicationService.getGlobalApplicationCommands(appId)
-        : applicationService.getGuildApplicationCommands(appId, guild);
-    return datas.filter(c -> c.type()
-        .toOptional()
-        .orElse(ApplicationCommand.Type.UNKNOWN.getValue())
-        .equals(type.getValue())).collectMap(ApplicationCommandData::name).block();
-  }
-
-  private static void addCommand(
-      ApplicationService applicationService,
-      ApplicationCommandRequest req,
-      long appId,
-      Long guild
-  ) {
-    if (guild == null) {
-      applicationService.createGlobalApplicationCommand(appId, req).block();
-      LOG.info("Created global command: {}", req.name());
-    } else {
-      applicationService.createGuildApplicationCommand(appId, guild, req).block();
-      LOG.info("Created guild {} command: {}", guild, req.name());
-    }
-  }
-
-  private static void removeCommand(
-      ApplicationService applicationService,
-      ApplicationCommandData cmd,
-      long appId,
-      Long guild,
-      long cmdId
-  ) {
-    if (guild == null) {
-      applicationService.deleteGlobalApplicationCommand(appId, cmdId).block();
-      LOG.info("Deleted global command: {}", cmd.name());
-    } else {
-      applicationService.deleteGuildApplicationCommand(appId, guild, cmdId).block();
-      LOG.info("Deleted guild {} command: {}", guild, cmd.name());
-    }
-  }
-
-  private static void updateCommand(
-      ApplicationService applicationService,
-      ApplicationCommandRequest req,
-      long appId,
-      Long guild,
-      long cmdId
-  ) {
-    if (guild == null) {
-      applicationService.modifyGlobalApplicationCommand(appId, cmdId, req).block();
-      LOG.info("Updated global command: {}", req.name());
-    } else {
-      applicationService.modifyGuildApplicationCommand(appId, guild, cmdId, req).block();
-      LOG.info("Updated guild {} command: {}", guild, req.name());
-    }
-  }
-
-  private static boolean hasChanged(
-      ApplicationCommandData discordCommand, ApplicationCommandRequest command
-  ) {
-    // Compare types
-    if (!discordCommand.type()
-        .toOptional()
-        .orElse(1)
-        .equals(command.type().toOptional().orElse(1))) {
-      return true;
-    }
-
-    //Check if description has changed.
-    if (!discordCommand.description().equals(command.description().toOptional().orElse(""))) {
-      return true;
-    }
-
-    //Check if default permissions have changed
-    boolean discordCommandDefaultPermission = discordCommand.defaultPermission()
-        .toOptional()
-        .orElse(true);
-    boolean commandDefaultPermission = command.defaultPermission().toOptional().orElse(true);
-
-    if (discordCommandDefaultPermission != commandDefaultPermission) {
-      return true;
-    }
-
-    //Check and return if options have changed.
-    return !discordCommand.options().equals(command.options());
-  }
-
   @SafeVarargs
   public static <T> List<ApplicationCommandOptionChoiceData> generateChoices(
       ConversionService conversionService,
@@ -348,11 +405,46 @@ public class DiscordBootstrap {
     return cmd.isEphemeral();
   }
 
-  public static Mono<String> getTargetDisplayNameOrName(UserInteractionEvent evt) {
+  /**
+   * <p>
+   * Finds the guild display name of the target user. The member resolved by discord is used if
+   * available. Otherwise, the member is fetched via REST and its display name is cached for
+   * {@code discord.display-name.ttl}, so the gateway member cache is not required. The username
+   * is used outside of guilds and for users that are not members.
+   * </p>
+   *
+   * @param evt user interaction event
+   * @return display name or username of the target user
+   */
+  public Mono<String> getTargetDisplayNameOrName(UserInteractionEvent evt) {
+    User user = evt.getResolvedUser();
     Snowflake guildId = evt.getInteraction().getGuildId().orElse(null);
-    return guildId != null
-        ? evt.getResolvedUser().asMember(guildId).map(Member::getDisplayName)
-        : Mono.just(evt.getResolvedUser().getUsername());
+    if (guildId == null) {
+      return Mono.just(user.getUsername());
+    }
+    String resolvedName = getResolvedDisplayName(evt).orElse(null);
+    if (resolvedName != null) {
+      return Mono.just(resolvedName);
+    }
+
+    String key = guildId.asString() + ":" + user.getId().asString();
+    String cachedName = displayNames.getIfPresent(key);
+    if (cachedName != null) {
+      return Mono.just(cachedName);
+    }
+    return user.asMember(guildId)
+        .map(Member::getDisplayName)
+        .doOnNext(name -> displayNames.put(key, name))
+        .onErrorResume(ClientException.class, e -> Mono.empty())
+        .defaultIfEmpty(user.getUsername());
+  }
+
+  public static Optional<String> getResolvedDisplayName(UserInteractionEvent evt) {
+    return evt.getInteraction()
+        .getCommandInteraction()
+        .flatMap(ApplicationCommandInteraction::getResolved)
+        .flatMap(resolved -> resolved.getMember(evt.getTargetId()))
+        .map(ResolvedMember::getDisplayName);
   }
 
   public static Mono<Message> notFoundFollowup(ApplicationCommandInteractionEvent evt) {
@@ -0,0 +1,89 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import java.util.ArrayList;
+import java.util.List;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Splits long text into pages that fit into embed descriptions. Sections are never split
+ * between pages unless a section doesn't fit into an empty page, such sections are split
+ * at line boundaries.
+ * </p>
+ */
+public final class EmbedPages {
+
+  public static final int MAX_DESCRIPTION_LENGTH = 4096;
+
+  private EmbedPages() {
+  }
+
+  /**
+   * <p>
+   * Lazily joins sections into pages. A page is emitted as soon as the next section doesn't
+   * fit into it, so downstream can send a page while the next page is being rendered.
+   * </p>
+   *
+   * @param sections  text sections
+   * @param separator section separator, it's not added between pages
+   * @param maxLength max page length
+   * @return pages
+   */
+  public static Flux<String> paginate(Flux<String> sections, String separator, int maxLength) {
+    if (separator.length() >= maxLength) {
+      throw new IllegalArgumentException("Separator doesn't fit into a page");
+    }
+
+    return Flux.defer(() -> {
+      StringBuilder page = new StringBuilder();
+      return sections
+          .concatMapIterable(section -> split(section, maxLength))
+          .<String>handle((section, sink) -> {
+            if (page.length() > 0
+                && page.length() + separator.length() + section.length() > maxLength) {
+              sink.next(page.toString());
+              page.setLength(0);
+            }
+            if (page.length() > 0) {
+              page.append(separator);
+            }
+            page.append(section);
+          })
+          .concatWith(Mono.fromSupplier(() -> page.length() > 0 ? page.toString() : null));
+    });
+  }
+
+  /**
+   * <p>
+   * Splits text into parts of up to {@code maxLength} characters. Text is split after the last
+   * line break that fits into a part, or at {@code maxLength} if there is no such line break.
+   * </p>
+   *
+   * @param text      text to split
+   * @param maxLength max part length
+   * @return parts
+   */
+  public static List<String> split(String text, int maxLength) {
+    if (text.length() <= maxLength) {
+      return List.of(text);
+    }
+
+    List<String> parts = new ArrayList<>(text.length() / maxLength + 1);
+    int start = 0;
+    while (text.length() - start > maxLength) {
+      int lineBreak = text.lastIndexOf('\n', start + maxLength - 1);
+      int end = lineBreak >= start ? lineBreak + 1 : start + maxLength;
+      parts.add(text.substring(start, end));
+      start = end;
+    }
+    if (start < text.length()) {
+      parts.add(text.substring(start));
+    }
+    return parts;
+  }
+
+}
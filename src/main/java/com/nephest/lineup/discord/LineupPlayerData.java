@@ -13,14 +13,26 @@ public class LineupPlayerData {
   private final PlayerCharacter playerCharacter;
   private final PlayerStatus status;
   private final List<String> errors;
+  private final boolean stale;
 
   public LineupPlayerData(
-      Player player, PlayerCharacter playerCharacter, PlayerStatus status, List<String> errors
+      Player player,
+      PlayerCharacter playerCharacter,
+      PlayerStatus status,
+      List<String> errors,
+      boolean stale
   ) {
     this.player = player;
     this.playerCharacter = playerCharacter;
     this.status = status;
     this.errors = errors;
+    this.stale = stale;
+  }
+
+  public LineupPlayerData(
+      Player player, PlayerCharacter playerCharacter, PlayerStatus status, List<String> errors
+  ) {
+    this(player, playerCharacter, status, errors, false);
   }
 
   public Player getPlayer() {
@@ -39,4 +51,15 @@ public class LineupPlayerData {
     return errors;
   }
 
+  /**
+   * <p>
+   * Data is stale when it's based on last known pulse stats because pulse is unavailable.
+   * </p>
+   *
+   * @return true if data is stale
+   */
+  public boolean isStale() {
+    return stale;
+  }
+
 }
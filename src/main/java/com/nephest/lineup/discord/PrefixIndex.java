@@ -0,0 +1,130 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * <p>
+ * In-memory per-user index of recently used values. Values are looked up by case-insensitive
+ * key prefix, most recently used values are returned first. Every user keeps up to
+ * {@code maxEntries} values, the least recently used value is evicted when the limit is reached.
+ * Users that haven't used the index for {@code ttl} are evicted.
+ * </p>
+ *
+ * @param <T> value type
+ */
+public class PrefixIndex<T> {
+
+  private final Cache<Long, UserIndex<T>> users;
+  private final int maxEntries;
+  private final AtomicLong sequence = new AtomicLong();
+
+  public PrefixIndex(long maxUsers, int maxEntries, Duration ttl) {
+    this.users = Caffeine.newBuilder()
+        .maximumSize(maxUsers)
+        .expireAfterAccess(ttl)
+        .build();
+    this.maxEntries = maxEntries;
+  }
+
+  /**
+   * <p>Adds a value or marks an existing value as the most recent one.</p>
+   *
+   * @param userId user id
+   * @param key    value key
+   * @param value  value
+   */
+  public void put(Long userId, String key, T value) {
+    UserIndex<T> index = users.get(userId, id -> new UserIndex<>());
+    String normalizedKey = normalize(key);
+    synchronized (index) {
+      index.entries.put(
+          normalizedKey,
+          new Entry<>(normalizedKey, value, sequence.incrementAndGet())
+      );
+      if (index.entries.size() > maxEntries) {
+        index.entries.values()
+            .stream()
+            .min(Comparator.comparingLong(Entry::getSequence))
+            .ifPresent(e -> index.entries.remove(e.getKey()));
+      }
+    }
+  }
+
+  /**
+   * <p>Finds values by key prefix. Lookups don't block concurrent updates.</p>
+   *
+   * @param userId user id
+   * @param prefix key prefix, all values match an empty prefix
+   * @param limit  max number of values
+   * @return values, most recent first
+   */
+  public List<T> find(Long userId, String prefix, int limit) {
+    UserIndex<T> index = users.getIfPresent(userId);
+    if (index == null) {
+      return List.of();
+    }
+
+    String normalizedPrefix = normalize(prefix);
+    Collection<Entry<T>> matches = normalizedPrefix.isEmpty()
+        ? index.entries.values()
+        : index.entries.subMap(normalizedPrefix, normalizedPrefix + Character.MAX_VALUE).values();
+    return matches.stream()
+        .sorted(Comparator.comparingLong(Entry<T>::getSequence).reversed())
+        .limit(limit)
+        .map(Entry::getValue)
+        .collect(Collectors.toList());
+  }
+
+  public long getUserCount() {
+    return users.estimatedSize();
+  }
+
+  private static String normalize(String key) {
+    return key == null ? "" : key.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private static final class UserIndex<T> {
+
+    private final ConcurrentSkipListMap<String, Entry<T>> entries = new ConcurrentSkipListMap<>();
+
+  }
+
+  private static final class Entry<T> {
+
+    private final String key;
+    private final T value;
+    private final long sequence;
+
+    private Entry(String key, T value, long sequence) {
+      this.key = key;
+      this.value = value;
+      this.sequence = sequence;
+    }
+
+    public String getKey() {
+      return key;
+    }
+
+    public T getValue() {
+      return value;
+    }
+
+    public long getSequence() {
+      return sequence;
+    }
+
+  }
+
+}
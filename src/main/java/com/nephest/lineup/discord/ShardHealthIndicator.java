@@ -0,0 +1,87 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import com.nephest.lineup.discord.ShardMonitor.ShardState;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ * Reports gateway shard connection state. The bot is down if any of its shards has never
+ * connected, or has been disconnected for longer than {@code discord.shard.disconnect-timeout}.
+ * Shards that were disconnected recently are usually reconnecting, the state is unknown
+ * until they reconnect or time out, so a short reconnect doesn't fail the application health.
+ * </p>
+ */
+@Component("discordShards")
+@ConditionalOnProperty(prefix = "discord", name = "token")
+public class ShardHealthIndicator implements HealthIndicator {
+
+  private final ShardMonitor shardMonitor;
+  private final Duration disconnectTimeout;
+
+  @Autowired
+  public ShardHealthIndicator(
+      SpringDiscordClient client,
+      @Value("${discord.shard.disconnect-timeout:PT2M}") Duration disconnectTimeout
+  ) {
+    this.shardMonitor = client.getShardMonitor();
+    this.disconnectTimeout = disconnectTimeout;
+  }
+
+  /**
+   * <p>Builds shard health.</p>
+   *
+   * @param shardStates       connection state by shard index
+   * @param now               current time
+   * @param disconnectTimeout max time a shard can be disconnected before it's considered down
+   * @return UP if all shards are connected, DOWN if there are no shards or any shard has never
+   *     connected or is disconnected for longer than {@code disconnectTimeout}, UNKNOWN otherwise
+   */
+  public static Health getHealth(
+      Map<Integer, ShardState> shardStates, Instant now, Duration disconnectTimeout
+  ) {
+    Instant downBefore = now.minus(disconnectTimeout);
+    boolean down = shardStates.isEmpty();
+    boolean reconnecting = false;
+    for (ShardState state : shardStates.values()) {
+      if (state.isConnected()) {
+        continue;
+      }
+      if (state.getDisconnectedAt() == null || state.getDisconnectedAt().isBefore(downBefore)) {
+        down = true;
+      } else {
+        reconnecting = true;
+      }
+    }
+    Health.Builder builder = down
+        ? Health.down()
+        : reconnecting ? Health.unknown() : Health.up();
+    shardStates.forEach((index, state) -> builder.withDetail("shard-" + index, describe(state)));
+    return builder.build();
+  }
+
+  private static String describe(ShardState state) {
+    if (state.isConnected()) {
+      return "connected";
+    }
+    return state.getDisconnectedAt() == null
+        ? "never connected"
+        : "disconnected since " + state.getDisconnectedAt();
+  }
+
+  @Override
+  public Health health() {
+    return getHealth(shardMonitor.getShardStates(), Instant.now(), disconnectTimeout);
+  }
+
+}
@@ -0,0 +1,150 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import discord4j.core.GatewayDiscordClient;
+import discord4j.core.event.domain.Event;
+import discord4j.core.event.domain.lifecycle.ConnectEvent;
+import discord4j.core.event.domain.lifecycle.DisconnectEvent;
+import discord4j.core.event.domain.lifecycle.ReadyEvent;
+import discord4j.core.event.domain.lifecycle.ReconnectEvent;
+import discord4j.core.event.domain.lifecycle.ReconnectFailEvent;
+import discord4j.core.event.domain.lifecycle.ReconnectStartEvent;
+import discord4j.core.event.domain.lifecycle.ResumeEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import reactor.core.Disposable;
+
+/**
+ * <p>
+ * Tracks gateway shards. Shard connection state is derived from lifecycle events, every event
+ * is counted to report per-shard event rate. Shards are tracked from their first event, or
+ * from the start if they are {@link #expect(int...) expected}.
+ * </p>
+ */
+public class ShardMonitor {
+
+  public static final String CONNECTED_METRIC_NAME = "discord.shard.connected";
+  public static final String EVENT_METRIC_NAME = "discord.gateway.events";
+
+  private final MeterRegistry meterRegistry;
+  private final Map<Integer, ShardStats> shards = new ConcurrentHashMap<>();
+
+  public ShardMonitor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  public Disposable subscribe(GatewayDiscordClient client) {
+    return client.on(Event.class).subscribe(this::record);
+  }
+
+  /**
+   * <p>
+   * Registers shards that this process is expected to connect to. Expected shards are
+   * reported as never connected until they connect, so a shard that never connects is
+   * visible.
+   * </p>
+   *
+   * @param indexes expected shard indexes
+   */
+  public void expect(int... indexes) {
+    for (int index : indexes) {
+      shards.computeIfAbsent(index, this::createStats);
+    }
+  }
+
+  public void record(Event evt) {
+    ShardStats stats = shards.computeIfAbsent(evt.getShardInfo().getIndex(), this::createStats);
+    stats.events.increment();
+    if (evt instanceof ConnectEvent
+        || evt instanceof ReadyEvent
+        || evt instanceof ResumeEvent
+        || evt instanceof ReconnectEvent) {
+      stats.state.set(ShardState.CONNECTED);
+    } else if (evt instanceof DisconnectEvent
+        || evt instanceof ReconnectStartEvent
+        || evt instanceof ReconnectFailEvent) {
+      //keep the time of the first disconnect until the shard is connected again
+      stats.state.updateAndGet(s -> s.isConnected() ? new ShardState(false, Instant.now()) : s);
+    }
+  }
+
+  /**
+   * <p>Connection state of expected shards and shards that have received at least one event.</p>
+   *
+   * @return connection state by shard index
+   */
+  public Map<Integer, ShardState> getShardStates() {
+    Map<Integer, ShardState> states = new TreeMap<>();
+    shards.forEach((index, stats) -> states.put(index, stats.state.get()));
+    return states;
+  }
+
+  private ShardStats createStats(Integer index) {
+    String shard = String.valueOf(index);
+    AtomicReference<ShardState> state = new AtomicReference<>(ShardState.NEVER_CONNECTED);
+    Gauge.builder(CONNECTED_METRIC_NAME, state, s -> s.get().isConnected() ? 1 : 0)
+        .description("1 if the shard is connected, 0 otherwise")
+        .tag("shard", shard)
+        .register(meterRegistry);
+    Counter events = Counter.builder(EVENT_METRIC_NAME)
+        .description("Gateway events received by the shard")
+        .tag("shard", shard)
+        .register(meterRegistry);
+    return new ShardStats(state, events);
+  }
+
+  /**
+   * <p>
+   * Immutable shard connection state. A disconnected shard without
+   * {@link #getDisconnectedAt() disconnect time} has never connected.
+   * </p>
+   */
+  public static final class ShardState {
+
+    public static final ShardState CONNECTED = new ShardState(true, null);
+    public static final ShardState NEVER_CONNECTED = new ShardState(false, null);
+
+    private final boolean connected;
+    private final Instant disconnectedAt;
+
+    public ShardState(boolean connected, Instant disconnectedAt) {
+      this.connected = connected;
+      this.disconnectedAt = disconnectedAt;
+    }
+
+    public boolean isConnected() {
+      return connected;
+    }
+
+    /**
+     * <p>Time when the shard was disconnected.</p>
+     *
+     * @return disconnect time, null if the shard is connected or has never connected
+     */
+    public Instant getDisconnectedAt() {
+      return disconnectedAt;
+    }
+
+  }
+
+  private static final class ShardStats {
+
+    private final AtomicReference<ShardState> state;
+    private final Counter events;
+
+    private ShardStats(AtomicReference<ShardState> state, Counter events) {
+      this.state = state;
+      this.events = events;
+    }
+
+  }
+
+}
@@ -3,10 +3,13 @@
 
 package com.nephest.lineup.discord;
 
+import com.nephest.lineup.config.DiscordShardingSettings;
+import com.nephest.lineup.data.repository.CommandRegistrationRepository;
 import com.nephest.lineup.discord.event.AutoComplete;
 import com.nephest.lineup.discord.event.SlashCommand;
 import com.nephest.lineup.discord.event.UserCommand;
 import discord4j.core.GatewayDiscordClient;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
 import java.util.List;
 import javax.annotation.PreDestroy;
@@ -21,21 +24,41 @@ public class SpringDiscordClient {
   public static final Duration TIMEOUT = Duration.ofSeconds(3);
 
   private final GatewayDiscordClient client;
+  private final ShardMonitor shardMonitor;
 
   public SpringDiscordClient(
       List<SlashCommand> handlers,
       List<UserCommand> userInteractionHandlers,
       List<AutoComplete> autoCompleteHandlers,
+      CommandExecutor commandExecutor,
+      CommandMetrics commandMetrics,
+      CommandRegistrationRepository commandRegistrationRepository,
+      DiscordShardingSettings shardingSettings,
+      MeterRegistry meterRegistry,
+      @Value("${discord.gateway.interactions-only:false}") boolean interactionsOnly,
       @Value("${discord.token:}") String token,
       @Value("${discord.guild:}") Long guild
   ) {
+    this.shardMonitor = new ShardMonitor(meterRegistry);
     this.client = DiscordBootstrap.load(
         handlers,
         userInteractionHandlers,
         autoCompleteHandlers,
+        commandExecutor,
+        commandMetrics,
+        commandRegistrationRepository,
+        shardingSettings.createStrategy(),
+        interactionsOnly,
+        shardMonitor,
         token,
         guild
     );
+    shardMonitor.expect(shardingSettings.getExpectedIndexes(
+        client.getGatewayClientGroup().getShardCount()));
+  }
+
+  public ShardMonitor getShardMonitor() {
+    return shardMonitor;
   }
 
   @PreDestroy
@@ -15,6 +15,8 @@ import org.springframework.lang.NonNull;
 
 public class LineupPlayerDataToStringConverter implements Converter<LineupPlayerData, String> {
 
+  public static final String STALE_MARKER = "*(stale)*";
+
   private final DiscordBootstrap discordBootstrap;
 
 
@@ -50,14 +52,17 @@ public class LineupPlayerDataToStringConverter implements Converter<LineupPlayer
 
   @Override
   public String convert(@NonNull LineupPlayerData source) {
-    PlayerCharacter playerCharacter = source.getPlayerCharacter();
-    Long pulseId = playerCharacter == null ? null : playerCharacter.getId();
     List<String> errors = source.getErrors();
-    PlayerStatus status = pulseId == null
-        ? PlayerStatus.UNKNOWN
-        : errors.isEmpty() ? PlayerStatus.SUCCESS : PlayerStatus.ERROR;
     StringBuilder sb = new StringBuilder();
-    sb.append(formatPlayer(source.getPlayer(), playerCharacter, discordBootstrap, status));
+    sb.append(formatPlayer(
+        source.getPlayer(),
+        source.getPlayerCharacter(),
+        discordBootstrap,
+        source.getStatus()
+    ));
+    if (source.isStale()) {
+      sb.append(" ").append(STALE_MARKER);
+    }
     if (!errors.isEmpty()) {
       sb.append(" ").append(String.join(",", errors));
     }
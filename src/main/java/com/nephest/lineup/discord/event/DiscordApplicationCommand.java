@@ -3,6 +3,7 @@
 
 package com.nephest.lineup.discord.event;
 
+import com.nephest.lineup.discord.CommandTrace;
 import discord4j.core.event.domain.interaction.ApplicationCommandInteractionEvent;
 import discord4j.core.object.entity.Message;
 import discord4j.discordjson.json.ImmutableApplicationCommandRequest;
@@ -11,11 +12,35 @@ import reactor.core.publisher.Mono;
 public interface DiscordApplicationCommand<T extends ApplicationCommandInteractionEvent>
     extends NamedCommand {
 
+  int DEFAULT_MAX_CONCURRENCY = 20;
+
   ImmutableApplicationCommandRequest.Builder generateCommandRequest();
 
-  Mono<Message> handle(T evt);
+  /**
+   * <p>
+   * Handles the event. The reply is already deferred, so commands must respond with a followup.
+   * DB calls, rendering, and followups should be timed by {@code trace}.
+   * </p>
+   *
+   * @param evt   event
+   * @param trace phase timings of this interaction
+   * @return followup message
+   */
+  Mono<Message> handle(T evt, CommandTrace trace);
 
   boolean isEphemeral();
 
+  /**
+   * <p>
+   * Max number of concurrent executions of this command. Commands that exceed the limit are
+   * rejected. Heavy commands should use lower limits, so they can't occupy all command threads.
+   * </p>
+   *
+   * @return max number of concurrent executions
+   */
+  default int getMaxConcurrency() {
+    return DEFAULT_MAX_CONCURRENCY;
+  }
+
 }
 
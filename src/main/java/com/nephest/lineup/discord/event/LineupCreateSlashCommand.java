@@ -8,11 +8,16 @@ import com.nephest.lineup.data.Lineup;
 import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.repository.LineupRepository;
 import com.nephest.lineup.data.repository.RuleSetRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.discord.CommandTrace.Phase;
 import com.nephest.lineup.discord.DiscordBootstrap;
+import discord4j.core.event.domain.interaction.ChatInputAutoCompleteEvent;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import discord4j.core.object.command.ApplicationCommandInteractionOptionValue;
 import discord4j.core.object.command.ApplicationCommandOption;
 import discord4j.core.object.entity.Message;
+import discord4j.discordjson.json.ApplicationCommandOptionChoiceData;
 import discord4j.discordjson.json.ApplicationCommandOptionData;
 import discord4j.discordjson.json.ImmutableApplicationCommandRequest;
 import java.time.OffsetDateTime;
@@ -29,7 +34,7 @@ import reactor.core.publisher.Mono;
 
 @Component
 @ConditionalOnProperty(prefix = "discord", name = "token")
-public class LineupCreateSlashCommand implements SlashCommand {
+public class LineupCreateSlashCommand implements SlashCommand, AutoComplete {
 
   public static final String NAME = "lineup-create";
   public static final TemporalUnit REVEAL_AT_OFFSET_UNIT = ChronoUnit.MINUTES;
@@ -37,16 +42,19 @@ public class LineupCreateSlashCommand implements SlashCommand {
   private final RuleSetRepository ruleSetRepository;
   private final LineupRepository lineupRepository;
   private final ConversionService conversionService;
+  private final AutoCompleteIndex autoCompleteIndex;
 
   @Autowired
   public LineupCreateSlashCommand(
       RuleSetRepository ruleSetRepository,
       LineupRepository lineupRepository,
-      @Qualifier("discordConversionService") ConversionService conversionService
+      @Qualifier("discordConversionService") ConversionService conversionService,
+      AutoCompleteIndex autoCompleteIndex
   ) {
     this.ruleSetRepository = ruleSetRepository;
     this.lineupRepository = lineupRepository;
     this.conversionService = conversionService;
+    this.autoCompleteIndex = autoCompleteIndex;
   }
 
   @Override
@@ -58,6 +66,7 @@ public class LineupCreateSlashCommand implements SlashCommand {
             .name("ruleset-id")
             .description("Id of previously created ruleset")
             .type(ApplicationCommandOption.Type.INTEGER.getValue())
+            .autocomplete(true)
             .required(true)
             .minValue(1.0)
             .maxValue((double) Integer.MAX_VALUE)
@@ -79,7 +88,7 @@ public class LineupCreateSlashCommand implements SlashCommand {
   }
 
   @Override
-  public Mono<Message> handle(ChatInputInteractionEvent evt) {
+  public Mono<Message> handle(ChatInputInteractionEvent evt, CommandTrace trace) {
     Long size = DiscordBootstrap.getArgument(
         evt,
         "size",
@@ -103,13 +112,22 @@ public class LineupCreateSlashCommand implements SlashCommand {
     try {
       revealAt = Util.parse(revealAtStr, REVEAL_AT_OFFSET_UNIT);
     } catch (DateTimeParseException ex) {
-      return evt.createFollowup("Invalid format: `revealAt` parameter");
+      return trace.time(
+          Phase.FOLLOWUP,
+          evt.createFollowup("Invalid format: `revealAt` parameter")
+      );
     }
 
 
-    RuleSet ruleSet = ruleSetRepository.findById(rulesetId).orElse(null);
+    RuleSet ruleSet = trace.record(
+        Phase.DB,
+        () -> ruleSetRepository.findById(rulesetId).orElse(null)
+    );
     if (ruleSet == null) {
-      return evt.createFollowup("Ruleset `" + rulesetId + "` not found");
+      return trace.time(
+          Phase.FOLLOWUP,
+          evt.createFollowup("Ruleset `" + rulesetId + "` not found")
+      );
     }
 
     Lineup lineup = new Lineup(
@@ -118,10 +136,20 @@ public class LineupCreateSlashCommand implements SlashCommand {
         revealAt,
         new ArrayList<>()
     );
-    lineupRepository.save(lineup);
-    return evt.createFollowup(DiscordBootstrap.coloredTextBlock("Lineup created:", true)
-        + "Ruleset: \n" + conversionService.convert(ruleSet, String.class) + "\n"
-        + "Lineup: \n" + conversionService.convert(lineup, String.class));
+    trace.record(Phase.DB, () -> lineupRepository.save(lineup));
+    Long discordUserId = evt.getInteraction().getUser().getId().asLong();
+    autoCompleteIndex.addRuleSet(discordUserId, ruleSet);
+    autoCompleteIndex.addLineup(discordUserId, lineup);
+    ConversionService renderService = trace.render(conversionService);
+    String response = DiscordBootstrap.coloredTextBlock("Lineup created:", true)
+        + "Ruleset: \n" + renderService.convert(ruleSet, String.class) + "\n"
+        + "Lineup: \n" + renderService.convert(lineup, String.class);
+    return trace.time(Phase.FOLLOWUP, evt.createFollowup(response));
+  }
+
+  @Override
+  public Iterable<ApplicationCommandOptionChoiceData> autoComplete(ChatInputAutoCompleteEvent evt) {
+    return autoCompleteIndex.suggestRuleSets(evt, DEFAULT_SUGGESTIONS_SIZE);
   }
 
   @Override
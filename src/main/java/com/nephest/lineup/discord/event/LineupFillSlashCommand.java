@@ -11,14 +11,20 @@ import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.misc.NullablePair;
 import com.nephest.lineup.data.repository.LineupRepository;
 import com.nephest.lineup.data.repository.PlayerRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.discord.CommandTrace.Phase;
 import com.nephest.lineup.discord.DiscordBootstrap;
 import com.nephest.lineup.service.LineupUtil;
+import com.nephest.lineup.service.PlayerDiff;
 import com.nephest.lineup.service.PulseApi;
+import discord4j.core.event.domain.interaction.ChatInputAutoCompleteEvent;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import discord4j.core.object.command.ApplicationCommandInteractionOptionValue;
 import discord4j.core.object.command.ApplicationCommandOption;
 import discord4j.core.object.entity.Message;
 import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.discordjson.json.ApplicationCommandOptionChoiceData;
 import discord4j.discordjson.json.ApplicationCommandOptionData;
 import discord4j.discordjson.json.ImmutableApplicationCommandRequest;
 import java.text.ParseException;
@@ -32,14 +38,14 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.convert.ConversionService;
-import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
 @Component
 @ConditionalOnProperty(prefix = "discord", name = "token")
-public class LineupFillSlashCommand implements SlashCommand {
+public class LineupFillSlashCommand implements SlashCommand, AutoComplete {
 
   public static final String NAME = "lineup-fill";
 
@@ -47,6 +53,8 @@ public class LineupFillSlashCommand implements SlashCommand {
   private final PlayerRepository playerRepository;
   private final PulseApi pulseApi;
   private final ConversionService conversionService;
+  private final Scheduler scheduler;
+  private final AutoCompleteIndex autoCompleteIndex;
 
   @Autowired
   @Lazy
@@ -57,12 +65,16 @@ public class LineupFillSlashCommand implements SlashCommand {
       LineupRepository lineupRepository,
       PlayerRepository playerRepository,
       PulseApi pulseApi,
-      @Qualifier("discordConversionService") ConversionService conversionService
+      @Qualifier("discordConversionService") ConversionService conversionService,
+      @Qualifier("discordCommandScheduler") Scheduler scheduler,
+      AutoCompleteIndex autoCompleteIndex
   ) {
     this.lineupRepository = lineupRepository;
     this.playerRepository = playerRepository;
     this.pulseApi = pulseApi;
     this.conversionService = conversionService;
+    this.scheduler = scheduler;
+    this.autoCompleteIndex = autoCompleteIndex;
   }
 
   @Override
@@ -74,6 +86,7 @@ public class LineupFillSlashCommand implements SlashCommand {
             .name("id")
             .description("Id of previously created lineup")
             .type(ApplicationCommandOption.Type.STRING.getValue())
+            .autocomplete(true)
             .required(true)
             .build())
         .addOption(ApplicationCommandOptionData.builder()
@@ -144,7 +157,7 @@ public class LineupFillSlashCommand implements SlashCommand {
   }
 
   @Override
-  public Mono<Message> handle(ChatInputInteractionEvent evt) {
+  public Mono<Message> handle(ChatInputInteractionEvent evt, CommandTrace trace) {
     Long discordUserId = evt.getInteraction().getUser().getId().asLong();
     String id = DiscordBootstrap.getArgument(
         evt,
@@ -153,7 +166,7 @@ public class LineupFillSlashCommand implements SlashCommand {
         null
     ).trim();
     if (!Util.isUuid(id)) {
-      return evt.createFollowup("Invalid id");
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup("Invalid id"));
     }
 
     UUID uuid = UUID.fromString(id);
@@ -163,12 +176,21 @@ public class LineupFillSlashCommand implements SlashCommand {
         ApplicationCommandInteractionOptionValue::asString,
         null
     ).trim();
-    NullablePair<Lineup, String> lineupPair = lineupFillSlashCommand.getLineup(uuid, discordUserId);
+    NullablePair<Lineup, String> lineupPair = trace.record(
+        Phase.DB,
+        () -> lineupFillSlashCommand.getLineup(uuid, discordUserId)
+    );
     if (lineupPair.getSecond() != null) {
-      return evt.createFollowup(lineupPair.getSecond());
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup(lineupPair.getSecond()));
     }
     Lineup lineup = lineupPair.getFirst();
     RuleSet ruleSet = lineup.getRuleSet();
+    autoCompleteIndex.addLineup(discordUserId, lineup);
+    //parsed players replace saved players in the lineup, so collect saved players first
+    List<Player> savedPlayers = lineup.getPlayers()
+        .stream()
+        .filter(p -> p.getDiscordUserId().equals(discordUserId))
+        .collect(Collectors.toList());
 
     //parse lineup
     List<Player> players;
@@ -182,49 +204,59 @@ public class LineupFillSlashCommand implements SlashCommand {
               + e.getMessage(),
           false
       );
-      return evt.createFollowup(resp);
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup(resp));
     }
     if (players.size() != lineup.getLength()) {
-      return evt.createFollowup(
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup(
           DiscordBootstrap.coloredTextBlock(
               "Can't save the lineup due to ruleset violations", false)
               + "**Players required:** " + lineup.getLength() + "\n"
               + "**Players received:** " + players.size() + "\n"
-      );
+      ));
     }
 
-    Pair<Boolean, String> playerResult = LineupUtil.processPlayers(
-        players,
+    PlayerDiff diff = PlayerDiff.of(savedPlayers, players);
+    ConversionService renderService = trace.render(conversionService);
+    return LineupUtil.processChangedPlayers(
+        diff.getPlayers(),
         ruleSet,
         pulseApi,
-        conversionService
-    );
-    String result = playerResult.getFirst()
-        ? DiscordBootstrap.coloredTextBlock("Lineup filled:", true)
-        : DiscordBootstrap.coloredTextBlock(
-            "Can't save the lineup due to ruleset violations",
-            false
-        );
+        renderService
+    )
+        //don't block pulse IO threads with JPA calls
+        .publishOn(scheduler)
+        .flatMap(playerResult -> {
+          String result = playerResult.getFirst()
+              ? DiscordBootstrap.coloredTextBlock("Lineup filled:", true)
+              : DiscordBootstrap.coloredTextBlock(
+                  "Can't save the lineup due to ruleset violations",
+                  false
+              );
 
-    if (playerResult.getFirst()) {
-      playerRepository.saveAllAndFlush(players);
-    }
+          if (playerResult.getFirst() && !diff.isEmpty()) {
+            trace.record(Phase.DB, () -> lineupFillSlashCommand.savePlayers(diff));
+          }
 
-    EmbedCreateSpec embed = EmbedCreateSpec.builder()
-        .description(result
-            + LineupUtil.getHeader(lineup, conversionService)
-            + "**"
-            + String.format(DiscordBootstrap.TAG_USER_TEMPLATE, players.get(0).getDiscordUserId())
-            + " players**\n"
-            + playerResult.getSecond() + "\n")
-        .build();
-    return evt.createFollowup().withEmbeds(embed);
+          String userTag = String.format(
+              DiscordBootstrap.TAG_USER_TEMPLATE,
+              players.get(0).getDiscordUserId()
+          );
+          EmbedCreateSpec embed = EmbedCreateSpec.builder()
+              .description(result
+                  + LineupUtil.getHeader(lineup, renderService)
+                  + "**"
+                  + userTag
+                  + " players**\n"
+                  + playerResult.getSecond() + "\n")
+              .build();
+          return trace.time(Phase.FOLLOWUP, evt.createFollowup().withEmbeds(embed));
+        });
   }
 
   /**
    * <p>
-   * Finds a lineup, verifies that is can be filled, and removes all users of a discord user. All is
-   * done within a transaction.
+   * Finds a lineup and verifies that is can be filled. Players of the discord user are kept,
+   * they are compared to the new players and only changed players are saved.
    * </p>
    *
    * @param uuid          Lineup id
@@ -235,7 +267,7 @@ public class LineupFillSlashCommand implements SlashCommand {
    */
   @Transactional
   public NullablePair<Lineup, String> getLineup(UUID uuid, Long discordUserId) {
-    Lineup lineup = lineupRepository.findById(uuid).orElse(null);
+    Lineup lineup = lineupRepository.findWithPlayersById(uuid).orElse(null);
     if (lineup == null) {
       return new NullablePair<>(lineup, "`" + uuid + "` lineup not found");
     }
@@ -249,13 +281,32 @@ public class LineupFillSlashCommand implements SlashCommand {
               + LineupUtil.getHeader(lineup, conversionService)
       );
     }
-    lineup.getPlayers().stream()
-        .filter(p -> p.getDiscordUserId().equals(discordUserId))
-        .collect(Collectors.toList())
-        .forEach(lineup::removePlayer);
     return new NullablePair<>(lineup, null);
   }
 
+  /**
+   * <p>
+   * Removes unused players and inserts or updates changed players within a transaction.
+   * Unchanged players are not touched.
+   * </p>
+   *
+   * @param diff player diff
+   */
+  @Transactional
+  public void savePlayers(PlayerDiff diff) {
+    if (!diff.getRemovedPlayers().isEmpty()) {
+      playerRepository.deleteAllInBatch(diff.getRemovedPlayers());
+    }
+    if (!diff.getChangedPlayers().isEmpty()) {
+      playerRepository.saveAllAndFlush(diff.getChangedPlayers());
+    }
+  }
+
+  @Override
+  public Iterable<ApplicationCommandOptionChoiceData> autoComplete(ChatInputAutoCompleteEvent evt) {
+    return autoCompleteIndex.suggestLineups(evt, DEFAULT_SUGGESTIONS_SIZE);
+  }
+
   @Override
   public String getCommandName() {
     return NAME;
@@ -7,14 +7,20 @@ import com.nephest.lineup.Util;
 import com.nephest.lineup.data.Lineup;
 import com.nephest.lineup.data.Player;
 import com.nephest.lineup.data.repository.LineupRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.discord.CommandTrace.Phase;
 import com.nephest.lineup.discord.DiscordBootstrap;
+import com.nephest.lineup.discord.EmbedPages;
 import com.nephest.lineup.service.LineupUtil;
 import com.nephest.lineup.service.PulseApi;
+import discord4j.core.event.domain.interaction.ChatInputAutoCompleteEvent;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import discord4j.core.object.command.ApplicationCommandInteractionOptionValue;
 import discord4j.core.object.command.ApplicationCommandOption;
 import discord4j.core.object.entity.Message;
 import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.discordjson.json.ApplicationCommandOptionChoiceData;
 import discord4j.discordjson.json.ApplicationCommandOptionData;
 import discord4j.discordjson.json.ImmutableApplicationCommandRequest;
 import java.time.OffsetDateTime;
@@ -26,28 +32,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.data.util.Pair;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 @Component
 @ConditionalOnProperty(prefix = "discord", name = "token")
-public class LineupRevealSlashCommand implements SlashCommand {
+public class LineupRevealSlashCommand implements SlashCommand, AutoComplete {
 
   public static final String NAME = "lineup-reveal";
+  public static final int MAX_CONCURRENCY = 4;
 
   private final LineupRepository lineupRepository;
   private final PulseApi pulseApi;
   private final ConversionService conversionService;
+  private final AutoCompleteIndex autoCompleteIndex;
 
   @Autowired
   public LineupRevealSlashCommand(
       LineupRepository lineupRepository,
       PulseApi pulseApi,
-      @Qualifier("discordConversionService") ConversionService conversionService
+      @Qualifier("discordConversionService") ConversionService conversionService,
+      AutoCompleteIndex autoCompleteIndex
   ) {
     this.lineupRepository = lineupRepository;
     this.pulseApi = pulseApi;
     this.conversionService = conversionService;
+    this.autoCompleteIndex = autoCompleteIndex;
   }
 
   @Override
@@ -59,12 +71,20 @@ public class LineupRevealSlashCommand implements SlashCommand {
             .name("id")
             .description("Id of previously created lineup")
             .type(ApplicationCommandOption.Type.STRING.getValue())
+            .autocomplete(true)
             .required(true)
+            .build())
+        .addOption(ApplicationCommandOptionData.builder()
+            .name("refresh")
+            .description("Verify players against current stats instead of stats captured at fill"
+                + " time")
+            .type(ApplicationCommandOption.Type.BOOLEAN.getValue())
+            .required(false)
             .build());
   }
 
   @Override
-  public Mono<Message> handle(ChatInputInteractionEvent evt) {
+  public Mono<Message> handle(ChatInputInteractionEvent evt, CommandTrace trace) {
     String id = DiscordBootstrap.getArgument(
         evt,
         "id",
@@ -72,48 +92,82 @@ public class LineupRevealSlashCommand implements SlashCommand {
         null
     ).trim();
     if (!Util.isUuid(id)) {
-      return evt.createFollowup("Invalid id");
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup("Invalid id"));
     }
     UUID uuid = UUID.fromString(id);
-    Lineup lineup = lineupRepository.findById(uuid).orElse(null);
+    Lineup lineup = trace.record(
+        Phase.DB,
+        () -> lineupRepository.findWithPlayersById(uuid).orElse(null)
+    );
     if (lineup == null) {
-      return evt.createFollowup("`" + uuid + "` lineup not found");
+      return trace.time(
+          Phase.FOLLOWUP,
+          evt.createFollowup("`" + uuid + "` lineup not found")
+      );
     }
-    String header = LineupUtil.getHeader(lineup, conversionService);
+    ConversionService renderService = trace.render(conversionService);
+    String header = LineupUtil.getHeader(lineup, renderService);
     Map<Long, List<Player>> players = lineup.getPlayers()
         .stream()
         .collect(Collectors.groupingBy(Player::getDiscordUserId));
     if (OffsetDateTime.now().isBefore(lineup.getRevealAt())) {
-      return evt.createFollowup(header
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup(header
           + "Players can be revealed after "
-          + conversionService.convert(lineup.getRevealAt(), String.class)
+          + renderService.convert(lineup.getRevealAt(), String.class)
           + "\n"
           + "Lineup count: "
           + players.size()
-          + "\n");
+          + "\n"));
     }
 
-    String response = header + players.entrySet()
+    List<List<Player>> playerGroups = players.entrySet()
         .stream()
         .sorted(Map.Entry.comparingByKey())
-        .map(e -> "**"
+        .map(Map.Entry::getValue)
+        .collect(Collectors.toList());
+    boolean refresh = DiscordBootstrap.getArgument(
+        evt,
+        "refresh",
+        ApplicationCommandInteractionOptionValue::asBoolean,
+        false
+    );
+    Flux<Pair<Boolean, String>> processed;
+    if (!refresh && LineupUtil.hasSnapshots(lineup.getPlayers())) {
+      //render stats captured at fill time, pulse is not called. Participants are rendered
+      //lazily, so rendering of the next page overlaps with sending of the current page
+      processed = Flux.fromIterable(playerGroups)
+          .map(g -> LineupUtil.processSnapshots(g, lineup.getRuleSet(), renderService));
+    } else {
+      //process all participants at once to fetch pulse data in one go
+      processed = LineupUtil.processPlayerGroups(
+          playerGroups,
+          lineup.getRuleSet(),
+          pulseApi,
+          renderService
+      )
+          .flatMapIterable(results -> results);
+    }
+    Flux<String> participants = Flux.zip(Flux.fromIterable(playerGroups), processed)
+        .map(t -> "**"
             + String.format(
-            DiscordBootstrap.TAG_USER_TEMPLATE,
-            e.getValue().get(0).getDiscordUserId()
-        )
+                DiscordBootstrap.TAG_USER_TEMPLATE,
+                t.getT1().get(0).getDiscordUserId()
+            )
             + " players**\n"
-            + LineupUtil.processPlayers(
-            e.getValue(),
-            lineup.getRuleSet(),
-            pulseApi,
-            conversionService
-        ).getSecond()
+            + t.getT2().getSecond()
             + "\n")
-        .collect(Collectors.joining("\n"));
-    EmbedCreateSpec embed = EmbedCreateSpec.builder()
-        .description(response)
-        .build();
-    return evt.createFollowup().withEmbeds(embed);
+        .index((i, participant) -> i == 0 ? header + participant : participant)
+        .switchIfEmpty(Mono.just(header));
+    //pages are sent sequentially to preserve their order and to respect the rate limit bucket
+    return EmbedPages.paginate(participants, "\n", EmbedPages.MAX_DESCRIPTION_LENGTH)
+        .concatMap(page -> trace.time(Phase.FOLLOWUP, evt.createFollowup()
+            .withEmbeds(EmbedCreateSpec.builder().description(page).build())))
+        .last();
+  }
+
+  @Override
+  public Iterable<ApplicationCommandOptionChoiceData> autoComplete(ChatInputAutoCompleteEvent evt) {
+    return autoCompleteIndex.suggestLineups(evt, DEFAULT_SUGGESTIONS_SIZE);
   }
 
   @Override
@@ -125,4 +179,10 @@ public class LineupRevealSlashCommand implements SlashCommand {
   public boolean isEphemeral() {
     return false;
   }
+
+  @Override
+  public int getMaxConcurrency() {
+    return MAX_CONCURRENCY;
+  }
+
 }
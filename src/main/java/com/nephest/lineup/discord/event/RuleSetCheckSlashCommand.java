@@ -0,0 +1,245 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord.event;
+
+import com.nephest.lineup.Util;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.repository.RuleSetRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.discord.CommandTrace.Phase;
+import com.nephest.lineup.discord.DiscordBootstrap;
+import com.nephest.lineup.discord.EmbedPages;
+import com.nephest.lineup.service.EligibilityService;
+import com.nephest.lineup.service.LineupUtil;
+import discord4j.core.event.domain.interaction.ChatInputAutoCompleteEvent;
+import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
+import discord4j.core.object.command.ApplicationCommandInteractionOptionValue;
+import discord4j.core.object.command.ApplicationCommandOption;
+import discord4j.core.object.entity.Message;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.discordjson.json.ApplicationCommandOptionChoiceData;
+import discord4j.discordjson.json.ApplicationCommandOptionData;
+import discord4j.discordjson.json.ImmutableApplicationCommandRequest;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+@Component
+@ConditionalOnProperty(prefix = "discord", name = "token")
+public class RuleSetCheckSlashCommand implements SlashCommand, AutoComplete {
+
+  public static final String NAME = "ruleset-check";
+  public static final int MAX_CONCURRENCY = 4;
+  public static final String ID_SEPARATOR_REGEX = "[,\\s]+";
+  private static final Logger LOG = LoggerFactory.getLogger(RuleSetCheckSlashCommand.class);
+
+  private final RuleSetRepository ruleSetRepository;
+  private final EligibilityService eligibilityService;
+  private final ConversionService conversionService;
+  private final AutoCompleteIndex autoCompleteIndex;
+
+  @Autowired
+  public RuleSetCheckSlashCommand(
+      RuleSetRepository ruleSetRepository,
+      EligibilityService eligibilityService,
+      @Qualifier("discordConversionService") ConversionService conversionService,
+      AutoCompleteIndex autoCompleteIndex
+  ) {
+    this.ruleSetRepository = ruleSetRepository;
+    this.eligibilityService = eligibilityService;
+    this.conversionService = conversionService;
+    this.autoCompleteIndex = autoCompleteIndex;
+  }
+
+  @Override
+  public ImmutableApplicationCommandRequest.Builder generateCommandRequest() {
+    return ImmutableApplicationCommandRequest.builder()
+        .name(NAME)
+        .description("Check which players fit a ruleset")
+        .addOption(ApplicationCommandOptionData.builder()
+            .name("ruleset-id")
+            .description("Id of previously created ruleset")
+            .type(ApplicationCommandOption.Type.INTEGER.getValue())
+            .autocomplete(true)
+            .required(true)
+            .build())
+        .addOption(ApplicationCommandOptionData.builder()
+            .name("ids")
+            .description("Pulse character ids separated by comma or space. "
+                + EligibilityService.MAX_CANDIDATES + " ids max.")
+            .type(ApplicationCommandOption.Type.STRING.getValue())
+            .required(true)
+            .build());
+  }
+
+  /**
+   * <p>Parses pulse ids, duplicates are removed.</p>
+   *
+   * @param idsStr ids separated by comma or whitespace
+   * @return ids in input order, or null if there is an invalid id
+   */
+  public static Long[] parseIds(String idsStr) {
+    Set<Long> ids = new LinkedHashSet<>();
+    for (String id : idsStr.trim().split(ID_SEPARATOR_REGEX)) {
+      if (id.isEmpty()) {
+        continue;
+      }
+      if (!Util.isInteger(id)) {
+        return null;
+      }
+      ids.add(Long.parseLong(id));
+    }
+    return ids.toArray(Long[]::new);
+  }
+
+  @Override
+  public Mono<Message> handle(ChatInputInteractionEvent evt, CommandTrace trace) {
+    Long ruleSetId = DiscordBootstrap.getArgument(
+        evt,
+        "ruleset-id",
+        ApplicationCommandInteractionOptionValue::asLong,
+        null
+    );
+    Long[] ids = parseIds(DiscordBootstrap.getArgument(
+        evt,
+        "ids",
+        ApplicationCommandInteractionOptionValue::asString,
+        ""
+    ));
+    if (ids == null || ids.length == 0) {
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup("Invalid ids"));
+    }
+    if (ids.length > EligibilityService.MAX_CANDIDATES) {
+      return trace.time(Phase.FOLLOWUP, evt.createFollowup("Too many ids: "
+          + ids.length + "/" + EligibilityService.MAX_CANDIDATES));
+    }
+    RuleSet ruleSet = trace.record(
+        Phase.DB,
+        () -> ruleSetRepository.findById(ruleSetId).orElse(null)
+    );
+    if (ruleSet == null) {
+      return trace.time(
+          Phase.FOLLOWUP,
+          evt.createFollowup("`" + ruleSetId + "` ruleset not found")
+      );
+    }
+    autoCompleteIndex.addRuleSet(evt.getInteraction().getUser().getId().asLong(), ruleSet);
+
+    String header = "**Ruleset**\n"
+        + trace.render(conversionService).convert(ruleSet, String.class)
+        + "\n\n";
+    return eligibilityService.check(ruleSet, ids)
+        .map(candidates -> header + trace.record(
+            Phase.RENDER,
+            () -> format(candidates, EmbedPages.MAX_DESCRIPTION_LENGTH - header.length())
+        ))
+        .onErrorResume(LineupUtil::isPulseUnavailable, t -> {
+          LOG.warn("Ruleset check has failed, pulse is unavailable", t);
+          return Mono.just(header + LineupUtil.PULSE_UNAVAILABLE_MESSAGE);
+        })
+        .flatMap(response -> trace.time(Phase.FOLLOWUP, evt.createFollowup()
+            .withEmbeds(EmbedCreateSpec.builder().description(response).build())));
+  }
+
+  /**
+   * <p>
+   * Formats candidates as eligible and ineligible sections. Candidates that don't fit into
+   * {@code maxLength} are counted but not listed.
+   * </p>
+   *
+   * @param candidates sorted candidates
+   * @param maxLength  max length of the result, the space left in the embed description
+   * @return formatted candidates
+   */
+  public static String format(List<EligibilityService.Candidate> candidates, int maxLength) {
+    long eligibleCount = candidates.stream()
+        .filter(EligibilityService.Candidate::isEligible)
+        .count();
+    //reserve space for the longest possible omitted line
+    int limit = maxLength - formatOmitted(candidates.size()).length();
+    StringBuilder sb = new StringBuilder();
+    int omitted = 0;
+    boolean ineligibleHeader = false;
+    sb.append("**Eligible(").append(eligibleCount).append(")**\n");
+    for (EligibilityService.Candidate candidate : candidates) {
+      StringBuilder line = new StringBuilder();
+      if (!candidate.isEligible() && !ineligibleHeader) {
+        line.append("\n**Ineligible(")
+            .append(candidates.size() - eligibleCount)
+            .append(")**\n");
+        ineligibleHeader = true;
+      }
+      line.append(formatCandidate(candidate)).append("\n");
+      if (omitted > 0 || sb.length() + line.length() > limit) {
+        omitted++;
+        continue;
+      }
+      sb.append(line);
+    }
+    if (omitted > 0) {
+      sb.append(formatOmitted(omitted));
+    }
+    return sb.toString();
+  }
+
+  private static String formatOmitted(int omitted) {
+    return "*...and " + omitted + " more*";
+  }
+
+  private static String formatCandidate(EligibilityService.Candidate candidate) {
+    StringBuilder sb = new StringBuilder();
+    Long id = candidate.getCharacterId();
+    if (candidate.getCharacter() != null) {
+      String name = candidate.getCharacter().getName();
+      int tagIx = name.indexOf("#");
+      sb.append("[**")
+          .append(tagIx < 0 ? name : name.substring(0, tagIx))
+          .append("**](<")
+          .append(String.format(LineupUtil.PULSE_CHARACTER_LINK_TEMPLATE, id))
+          .append(">)");
+    } else {
+      sb.append("`").append(id).append("`");
+    }
+    if (candidate.getRace() != null) {
+      sb.append(" ").append(candidate.getRace().getName());
+    }
+    if (candidate.getSummary() != null) {
+      sb.append(" ").append(candidate.getSummary().getRatingLast());
+    }
+    if (!candidate.isEligible()) {
+      sb.append(" ").append(String.join(",", candidate.getErrors()));
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public Iterable<ApplicationCommandOptionChoiceData> autoComplete(ChatInputAutoCompleteEvent evt) {
+    return autoCompleteIndex.suggestRuleSets(evt, DEFAULT_SUGGESTIONS_SIZE);
+  }
+
+  @Override
+  public String getCommandName() {
+    return NAME;
+  }
+
+  @Override
+  public boolean isEphemeral() {
+    return true;
+  }
+
+  @Override
+  public int getMaxConcurrency() {
+    return MAX_CONCURRENCY;
+  }
+
+}
@@ -5,6 +5,9 @@ package com.nephest.lineup.discord.event;
 
 import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.repository.RuleSetRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.discord.CommandTrace.Phase;
 import com.nephest.lineup.discord.DiscordBootstrap;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import discord4j.core.object.command.ApplicationCommandInteractionOptionValue;
@@ -27,14 +30,17 @@ public class RuleSetSlashCommand implements SlashCommand {
 
   private final RuleSetRepository ruleSetRepository;
   private final ConversionService conversionService;
+  private final AutoCompleteIndex autoCompleteIndex;
 
   @Autowired
   public RuleSetSlashCommand(
       RuleSetRepository ruleSetRepository,
-      @Qualifier("discordConversionService") ConversionService conversionService
+      @Qualifier("discordConversionService") ConversionService conversionService,
+      AutoCompleteIndex autoCompleteIndex
   ) {
     this.ruleSetRepository = ruleSetRepository;
     this.conversionService = conversionService;
+    this.autoCompleteIndex = autoCompleteIndex;
   }
 
 
@@ -109,7 +115,7 @@ public class RuleSetSlashCommand implements SlashCommand {
   }
 
   @Override
-  public Mono<Message> handle(ChatInputInteractionEvent evt) {
+  public Mono<Message> handle(ChatInputInteractionEvent evt, CommandTrace trace) {
     String name = DiscordBootstrap.getArgument(
         evt,
         "name",
@@ -175,9 +181,11 @@ public class RuleSetSlashCommand implements SlashCommand {
         mmrMaxMin == null ? null : mmrMaxMin.intValue(),
         mmrMaxMax == null ? null : mmrMaxMax.intValue()
     );
-    ruleSetRepository.save(ruleSet);
-    return evt.createFollowup(DiscordBootstrap.coloredTextBlock("Created ruleset:", true)
-        + conversionService.convert(ruleSet, String.class));
+    trace.record(Phase.DB, () -> ruleSetRepository.save(ruleSet));
+    autoCompleteIndex.addRuleSet(evt.getInteraction().getUser().getId().asLong(), ruleSet);
+    String response = DiscordBootstrap.coloredTextBlock("Created ruleset:", true)
+        + trace.render(conversionService).convert(ruleSet, String.class);
+    return trace.time(Phase.FOLLOWUP, evt.createFollowup(response));
   }
 
   @Override
@@ -0,0 +1,185 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.pulse.PlayerCharacter;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Checks a pool of pulse characters against a {@code RuleSet}. Summaries are fetched in
+ * bulk, large pools are chunked by {@link PulseApi}.
+ * </p>
+ */
+@Service
+public class EligibilityService {
+
+  public static final int MAX_CANDIDATES = 500;
+
+  public static final Comparator<Candidate> CANDIDATE_COMPARATOR = Comparator
+      .comparing((Candidate c) -> !c.isEligible())
+      .thenComparing((Candidate c) -> c.getSummary() == null)
+      .thenComparing(
+          c -> c.getSummary() == null ? 0 : c.getSummary().getRatingLast(),
+          Comparator.reverseOrder()
+      )
+      .thenComparing(Candidate::getCharacterId);
+
+  private final PulseApi pulseApi;
+
+  @Autowired
+  public EligibilityService(PulseApi pulseApi) {
+    this.pulseApi = pulseApi;
+  }
+
+  /**
+   * <p>
+   * Checks every race of every character. Characters without summaries are considered
+   * inactive.
+   * </p>
+   *
+   * @param ruleSet rule set to check against
+   * @param ids     pulse character ids, up to {@link #MAX_CANDIDATES}
+   * @return candidates sorted by eligibility, then by mmr, or {@code IllegalArgumentException}
+   *     if there are too many ids
+   */
+  public Mono<List<Candidate>> check(RuleSet ruleSet, Long... ids) {
+    if (ids.length > MAX_CANDIDATES) {
+      return Mono.error(new IllegalArgumentException(
+          "Too many ids: " + ids.length + "/" + MAX_CANDIDATES));
+    }
+    if (ids.length == 0) {
+      return Mono.just(List.of());
+    }
+
+    return Mono.zip(
+        LineupUtil.timePulse(pulseApi.getSummaries(ruleSet.getDepth(), ids)),
+        LineupUtil.fetchOptional(LineupUtil.timePulse(pulseApi.getCharacters(ids)), "characters")
+    )
+        .map(t -> evaluate(
+            ruleSet,
+            ids,
+            t.getT1(),
+            t.getT2().orElse(List.of())
+        ));
+  }
+
+  /**
+   * <p>Evaluates prefetched pulse data in bulk.</p>
+   *
+   * @param ruleSet    rule set to check against
+   * @param ids        pulse character ids
+   * @param summaries  summaries of {@code ids}
+   * @param characters characters of {@code ids}
+   * @return candidates sorted by eligibility, then by mmr
+   */
+  public static List<Candidate> evaluate(
+      RuleSet ruleSet,
+      Long[] ids,
+      List<PlayerSummary> summaries,
+      List<PlayerCharacter> characters
+  ) {
+    Map<Long, PlayerCharacter> characterMap = characters.stream()
+        .collect(Collectors.toMap(PlayerCharacter::getId, Function.identity(), (c1, c2) -> c1));
+    Set<Long> activeIds = new HashSet<>();
+    List<PlayerSummary> rows = new ArrayList<>(summaries.size() + ids.length);
+    for (PlayerSummary summary : summaries) {
+      activeIds.add(summary.getPlayerCharacterId());
+      rows.add(summary);
+    }
+    List<Long> inactiveIds = new ArrayList<>();
+    for (Long id : ids) {
+      if (activeIds.add(id)) {
+        inactiveIds.add(id);
+        rows.add(null);
+      }
+    }
+
+    SummaryColumns columns = SummaryColumns.of(rows);
+    int[] violations = RuleSetEvaluator.compile(ruleSet).evaluate(columns);
+    List<Candidate> candidates = new ArrayList<>(rows.size());
+    for (int i = 0; i < rows.size(); i++) {
+      PlayerSummary summary = rows.get(i);
+      Long id = summary != null
+          ? summary.getPlayerCharacterId()
+          : inactiveIds.get(i - summaries.size());
+      candidates.add(new Candidate(
+          id,
+          summary == null ? null : summary.getRace(),
+          summary,
+          characterMap.get(id),
+          RuleSetEvaluator.describe(violations[i], columns, i)
+      ));
+    }
+    candidates.sort(CANDIDATE_COMPARATOR);
+    return candidates;
+  }
+
+  public static final class Candidate {
+
+    private final Long characterId;
+    private final Race race;
+    private final PlayerSummary summary;
+    private final PlayerCharacter character;
+    private final List<String> errors;
+
+    public Candidate(
+        Long characterId,
+        Race race,
+        PlayerSummary summary,
+        PlayerCharacter character,
+        List<String> errors
+    ) {
+      this.characterId = characterId;
+      this.race = race;
+      this.summary = summary;
+      this.character = character;
+      this.errors = errors;
+    }
+
+    public boolean isEligible() {
+      return errors.isEmpty();
+    }
+
+    public Long getCharacterId() {
+      return characterId;
+    }
+
+    /**
+     * <p>Race of the checked summary.</p>
+     *
+     * @return race, null for inactive characters
+     */
+    public Race getRace() {
+      return race;
+    }
+
+    public PlayerSummary getSummary() {
+      return summary;
+    }
+
+    public PlayerCharacter getCharacter() {
+      return character;
+    }
+
+    public List<String> getErrors() {
+      return errors;
+    }
+
+  }
+
+}
@@ -0,0 +1,94 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import com.nephest.lineup.data.repository.LineupRepository;
+import com.nephest.lineup.data.repository.PlayerRepository;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.util.Pair;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * <p>
+ * Removes expired lineups with set-based deletes. Lineups are removed in batches of up to
+ * {@code lineup.expiry.batch-size} lineups, oldest first. Every batch is removed in its own
+ * short transaction: players first, then lineups. Entities are never loaded into the
+ * persistence context.
+ * </p>
+ */
+@Service
+public class LineupExpiryService {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LineupExpiryService.class);
+
+  private final LineupRepository lineupRepository;
+  private final PlayerRepository playerRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+
+  @Autowired
+  public LineupExpiryService(
+      LineupRepository lineupRepository,
+      PlayerRepository playerRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${lineup.expiry.batch-size:500}") int batchSize
+  ) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Invalid batch size: " + batchSize);
+    }
+    this.lineupRepository = lineupRepository;
+    this.playerRepository = playerRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * <p>Removes lineups that were revealed before {@code revealAt}.</p>
+   *
+   * @param revealAt reveal date
+   * @return number of removed lineups
+   */
+  public int removeRevealedBefore(OffsetDateTime revealAt) {
+    int removed = 0;
+    while (true) {
+      long start = System.nanoTime();
+      List<UUID> ids = lineupRepository.findIdsByRevealAtBefore(
+          revealAt,
+          PageRequest.of(0, batchSize)
+      );
+      if (ids.isEmpty()) {
+        break;
+      }
+
+      Pair<Integer, Integer> batch = transactionTemplate.execute(s -> removeBatch(ids));
+      removed += batch.getFirst();
+      LOG.info(
+          "Removed {} lineups and {} players in {} ms",
+          batch.getFirst(),
+          batch.getSecond(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+      );
+      if (ids.size() < batchSize) {
+        break;
+      }
+    }
+    return removed;
+  }
+
+  private Pair<Integer, Integer> removeBatch(List<UUID> ids) {
+    int players = playerRepository.removeByLineupIds(ids);
+    int lineups = lineupRepository.removeByIds(ids);
+    return Pair.of(lineups, players);
+  }
+
+}
@@ -6,23 +6,35 @@ package com.nephest.lineup.service;
 import com.nephest.lineup.Util;
 import com.nephest.lineup.data.Lineup;
 import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.PlayerSnapshot;
 import com.nephest.lineup.data.Race;
 import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.pulse.PlayerCharacter;
 import com.nephest.lineup.data.pulse.PlayerSummary;
-import com.nephest.lineup.data.pulse.PlayerSummaryMeta;
+import com.nephest.lineup.discord.CommandTrace;
 import com.nephest.lineup.discord.LineupPlayerData;
 import com.nephest.lineup.discord.PlayerStatus;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.util.Pair;
+import org.springframework.web.reactive.function.client.WebClientException;
+import reactor.core.publisher.Mono;
 
 public final class LineupUtil {
 
@@ -30,10 +42,15 @@ public final class LineupUtil {
       PULSE_CHARACTER_LINK_TEMPLATE
       = "https://www.nephest.com/sc2/?type=character&id=%1$s&m=1#player-stats-mmr";
 
+  public static final Duration PULSE_DEADLINE = Duration.ofSeconds(12);
+  public static final String
+      PULSE_UNAVAILABLE_MESSAGE
+      = "*SC2 Pulse is unavailable, players can't be verified. Try again later.*";
+  private static final Logger LOG = LoggerFactory.getLogger(LineupUtil.class);
+
   private LineupUtil() {
   }
 
-
   public static List<String> checkEligibility(
       Player player, PlayerSummary summary
   ) {
@@ -42,7 +59,10 @@ public final class LineupUtil {
   }
 
   /**
-   * <p>Checks {@code PlayerSummary} against supplied {@code RuleSet}. </p>
+   * <p>
+   * Checks {@code PlayerSummary} against supplied {@code RuleSet}. The rule set is compiled
+   * on every call, use {@link RuleSetEvaluator} directly to check many summaries.
+   * </p>
    *
    * @param summary Summary to verify
    * @param ruleSet Rule set to verify against
@@ -51,37 +71,7 @@ public final class LineupUtil {
   public static List<String> checkEligibility(
       PlayerSummary summary, RuleSet ruleSet
   ) {
-    List<String> errors = new ArrayList<>();
-    if (summary == null) {
-      errors.add("Player is inactive(no games played)");
-      return errors;
-    }
-    if (ruleSet.getGamesMin() != null && summary.getGames() < ruleSet.getGamesMin()) {
-      errors.add("games: " + summary.getGames());
-    }
-    if (ruleSet.getRatingMax() != null
-
-        && summary.getRatingLast() > ruleSet.getRatingMax()) {
-      errors.add("mmr: " + summary.getRatingLast());
-    }
-    if (ruleSet.getRatingMin() != null && summary.getRatingLast() < ruleSet.getRatingMin()) {
-      errors.add("mmr: " + summary.getRatingLast());
-    }
-
-    if (ruleSet.getRatingAvgMax() != null && summary.getRatingAvg() > ruleSet.getRatingAvgMax()) {
-      errors.add("avg mmr: " + summary.getRatingAvg());
-    }
-    if (ruleSet.getRatingAvgMin() != null && summary.getRatingAvg() < ruleSet.getRatingAvgMin()) {
-      errors.add("avg mmr: " + summary.getRatingAvg());
-    }
-
-    if (ruleSet.getRatingMaxMax() != null && summary.getRatingMax() > ruleSet.getRatingMaxMax()) {
-      errors.add("max mmr: " + summary.getRatingMax());
-    }
-    if (ruleSet.getRatingMaxMin() != null && summary.getRatingMax() < ruleSet.getRatingMaxMin()) {
-      errors.add("max mmr: " + summary.getRatingMax());
-    }
-    return errors;
+    return RuleSetEvaluator.compile(ruleSet).check(summary);
   }
 
   /**
@@ -91,66 +81,450 @@ public final class LineupUtil {
    * ids are verified against the supplied {@code RuleSet}. {@code ConversionService} is used
    * to convert entities to strings.
    * Players with no pulse id are treated as simple strings and saved without verifying
-   * their stats.
+   * their stats. Pulse API is not called if there are no pulse players.
+   * </p>
+   *
+   * @param players           target players
+   * @param ruleSet           RuleSet to verify against
+   * @param pulseApi          API service
+   * @param conversionService conversion service
+   * @return a pair of Boolean status(false = error, true = ok) and processed String
+   */
+  public static Mono<Pair<Boolean, String>> processPlayers(
+      List<Player> players,
+      RuleSet ruleSet,
+      PulseApi pulseApi,
+      ConversionService conversionService
+  ) {
+    return processPlayerGroups(List.of(players), ruleSet, pulseApi, conversionService)
+        .map(results -> results.get(0));
+  }
+
+  /**
+   * <p>
+   * Bulk version of {@link #processPlayers(List, RuleSet, PulseApi, ConversionService)}.
+   * Pulse ids of all groups are fetched at once, so the number of API calls doesn't depend
+   * on the number of groups.
+   * </p>
+   *
+   * @param playerGroups      target player groups, every group is processed separately
+   * @param ruleSet           RuleSet to verify against
+   * @param pulseApi          API service
+   * @param conversionService conversion service
+   * @return results in {@code playerGroups} order
+   */
+  public static Mono<List<Pair<Boolean, String>>> processPlayerGroups(
+      List<List<Player>> playerGroups,
+      RuleSet ruleSet,
+      PulseApi pulseApi,
+      ConversionService conversionService
+  ) {
+    List<Map<Long, List<Player>>> pulsePlayerGroups = new ArrayList<>(playerGroups.size());
+    for (List<Player> players : playerGroups) {
+      players.sort(Comparator.comparing(Player::getSlot));
+      pulsePlayerGroups.add(groupPulsePlayers(players));
+    }
+    Long[] ids = pulsePlayerGroups.stream()
+        .flatMap(g -> g.keySet().stream())
+        .distinct()
+        .toArray(Long[]::new);
+    if (ids.length == 0) {
+      return Mono.fromSupplier(() -> renderPlayerGroups(
+          playerGroups,
+          ruleSet,
+          pulsePlayerGroups,
+          Map.of(),
+          Map.of(),
+          conversionService
+      ));
+    }
+
+    //summaries and characters are independent, fetch them concurrently
+    return Mono.zip(
+        fetchOptional(
+            timePulse(pulseApi.getSummaries(ruleSet.getDepth(), getRaces(pulsePlayerGroups))),
+            "summaries"
+        ),
+        fetchOptional(timePulse(pulseApi.getCharacters(ids)), "characters")
+    )
+        .map(t -> {
+          Map<Long, List<PlayerSummary>> summaries = t.getT1()
+              .map(LineupUtil::groupSummaries)
+              .orElse(null);
+          Map<Long, PlayerCharacter> characters = groupCharacters(t.getT2().orElse(List.of()));
+          if (summaries != null && !isStale(summaries, characters)) {
+            OffsetDateTime capturedAt = OffsetDateTime.now();
+            pulsePlayerGroups.forEach(g -> captureSnapshots(g, summaries, characters, capturedAt));
+          }
+          return renderPlayerGroups(
+              playerGroups,
+              ruleSet,
+              pulsePlayerGroups,
+              summaries,
+              characters,
+              conversionService
+          );
+        });
+  }
+
+  /**
+   * <p>
+   * Verifies and converts players using their {@link Player#getSnapshot() snapshots}, pulse
+   * API is not called. Pulse players without snapshots are considered inactive, use
+   * {@link #hasSnapshots(List)} to check if snapshots are available.
    * </p>
    *
    * @param players           target players
    * @param ruleSet           RuleSet to verify against
+   * @param conversionService conversion service
+   * @return a pair of Boolean status(false = error, true = ok) and processed String
+   */
+  public static Pair<Boolean, String> processSnapshots(
+      List<Player> players, RuleSet ruleSet, ConversionService conversionService
+  ) {
+    players.sort(Comparator.comparing(Player::getSlot));
+    Map<Long, List<Player>> pulsePlayers = groupPulsePlayers(players);
+    Map<Long, List<PlayerSummary>> summaries = new HashMap<>();
+    Map<Long, PlayerCharacter> characters = new HashMap<>();
+    restoreSnapshots(pulsePlayers, summaries, characters);
+    return renderPlayers(
+        players,
+        ruleSet,
+        pulsePlayers,
+        summaries,
+        characters,
+        conversionService
+    );
+  }
+
+  /**
+   * <p>
+   * Incremental version of {@link #processPlayers(List, RuleSet, PulseApi, ConversionService)}.
+   * Pulse players that have a {@link Player#getSnapshot() snapshot} are considered unchanged
+   * and are verified using it, only the remaining pulse players are fetched from the pulse
+   * API. Fetched players receive new snapshots. Pulse API is not called if all pulse players
+   * have snapshots.
+   * </p>
+   *
+   * @param players           target players, reused players must have snapshots
+   * @param ruleSet           RuleSet to verify against
    * @param pulseApi          API service
    * @param conversionService conversion service
    * @return a pair of Boolean status(false = error, true = ok) and processed String
    */
-  public static Pair<Boolean, String> processPlayers(
+  public static Mono<Pair<Boolean, String>> processChangedPlayers(
       List<Player> players,
       RuleSet ruleSet,
       PulseApi pulseApi,
       ConversionService conversionService
   ) {
     players.sort(Comparator.comparing(Player::getSlot));
-    //verify pulse players
-    Map<Long, List<Player>> pulsePlayers = players.stream()
-        .filter(p -> Util.isInteger(p.getData()))
-        .collect(Collectors.groupingBy(p -> Long.parseLong(p.getData())));
-    Map<Long, List<PlayerSummary>> summaries = pulseApi.getSummaries(
-            ruleSet.getDepth(),
-            pulsePlayers.keySet().toArray(Long[]::new)
-        )
-        .stream()
-        .collect(Collectors.groupingBy(PlayerSummary::getPlayerCharacterId));
-    Map<Long, Map<Race, List<String>>> errors = new HashMap<>();
-    pulsePlayers.entrySet().stream()
-        .flatMap(e -> e.getValue().stream().map(p -> Pair.of(e.getKey(), p)))
-        //get summaries
-        .map(p -> summaries.getOrDefault(p.getFirst(), List.of())
-            .stream()
-            .filter(s -> s.getRace() == p.getSecond().getRace())
-            .map(s -> new PlayerSummaryMeta(p.getSecond(), p.getFirst(), s))
-            .findAny()
-            .orElse(new PlayerSummaryMeta(p.getSecond(), p.getFirst(), null)))
-        //verify
-        .forEach(s -> {
-          List<String> curErrors = LineupUtil.checkEligibility(s.getPlayerSummary(), ruleSet);
-          if (!curErrors.isEmpty()) {
-            errors.putIfAbsent(s.getPulseId(), new EnumMap<>(Race.class));
-            errors.get(s.getPulseId()).put(s.getPlayer().getRace(), curErrors);
+    Map<Long, List<Player>> pulsePlayers = groupPulsePlayers(players);
+    Map<Boolean, List<Player>> partitioned = players.stream()
+        .collect(Collectors.partitioningBy(p -> p.getSnapshot() != null));
+    Map<Long, List<Player>> reusedPlayers = groupPulsePlayers(partitioned.get(true));
+    Map<Long, List<Player>> changedPlayers = groupPulsePlayers(partitioned.get(false));
+    if (changedPlayers.isEmpty()) {
+      return Mono.fromSupplier(() -> processSnapshots(players, ruleSet, conversionService));
+    }
+
+    Long[] ids = changedPlayers.keySet().toArray(Long[]::new);
+    return Mono.zip(
+        fetchOptional(
+            timePulse(pulseApi.getSummaries(ruleSet.getDepth(), getRaces(List.of(changedPlayers)))),
+            "summaries"
+        ),
+        fetchOptional(timePulse(pulseApi.getCharacters(ids)), "characters")
+    )
+        .map(t -> {
+          Map<Long, List<PlayerSummary>> summaries = t.getT1()
+              .map(LineupUtil::groupSummaries)
+              .orElse(null);
+          Map<Long, PlayerCharacter> characters = groupCharacters(t.getT2().orElse(List.of()));
+          if (summaries != null && !isStale(summaries, characters)) {
+            captureSnapshots(changedPlayers, summaries, characters, OffsetDateTime.now());
           }
+          restoreSnapshots(reusedPlayers, summaries, characters);
+          return renderPlayers(
+              players,
+              ruleSet,
+              pulsePlayers,
+              summaries,
+              characters,
+              conversionService
+          );
         });
+  }
+
+  /**
+   * <p>
+   * Times a pulse API call as {@link CommandTrace.Phase#PULSE} if it's made by a discord
+   * command. Concurrent calls are counted once.
+   * </p>
+   *
+   * @param request pulse API request
+   * @param <T>     result type
+   * @return timed request
+   */
+  public static <T> Mono<T> timePulse(Mono<T> request) {
+    return CommandTrace.timeInContext(CommandTrace.Phase.PULSE, request);
+  }
 
-    Map<Long, PlayerCharacter> characters = pulseApi.getCharacters(pulsePlayers.keySet()
-            .toArray(new Long[0]))
+  public static boolean hasSnapshots(List<Player> players) {
+    return players.stream()
+        .filter(p -> Util.isInteger(p.getData()))
+        .allMatch(p -> p.getSnapshot() != null);
+  }
+
+  /**
+   * <p>
+   * Adds pulse data of player snapshots to the supplied maps. Existing summaries are kept,
+   * characters are added only if they are missing.
+   * </p>
+   *
+   * @param pulsePlayers players grouped by pulse id, players without snapshots are skipped
+   * @param summaries    target summaries, nullable
+   * @param characters   target characters
+   */
+  private static void restoreSnapshots(
+      Map<Long, List<Player>> pulsePlayers,
+      Map<Long, List<PlayerSummary>> summaries,
+      Map<Long, PlayerCharacter> characters
+  ) {
+    pulsePlayers.forEach((id, idPlayers) -> {
+      for (Player player : idPlayers) {
+        PlayerSnapshot snapshot = player.getSnapshot();
+        if (snapshot == null) {
+          continue;
+        }
+        PlayerSummary summary = snapshot.toSummary(id, player.getRace());
+        if (summary != null && summaries != null) {
+          summaries.computeIfAbsent(id, i -> new ArrayList<>()).add(summary);
+        }
+        PlayerCharacter character = snapshot.toCharacter(id);
+        if (character != null) {
+          characters.putIfAbsent(id, character);
+        }
+      }
+    });
+  }
+
+  /**
+   * <p>Request only the races that are used by players to reduce the payload.</p>
+   *
+   * @param pulsePlayerGroups groups of players grouped by pulse id
+   * @return races of every pulse id
+   */
+  private static Map<Long, Set<Race>> getRaces(
+      List<Map<Long, List<Player>>> pulsePlayerGroups
+  ) {
+    Map<Long, Set<Race>> races = new HashMap<>();
+    for (Map<Long, List<Player>> pulsePlayers : pulsePlayerGroups) {
+      pulsePlayers.forEach((id, idPlayers) -> {
+        Set<Race> idRaces = races.computeIfAbsent(id, i -> EnumSet.noneOf(Race.class));
+        idPlayers.forEach(p -> idRaces.add(p.getRace()));
+      });
+    }
+    return races;
+  }
+
+  private static Map<Long, List<Player>> groupPulsePlayers(List<Player> players) {
+    return players.stream()
+        .filter(p -> Util.isInteger(p.getData()))
+        .collect(Collectors.groupingBy(p -> Long.parseLong(p.getData())));
+  }
+
+  private static void captureSnapshots(
+      Map<Long, List<Player>> pulsePlayers,
+      Map<Long, List<PlayerSummary>> summaries,
+      Map<Long, PlayerCharacter> characters,
+      OffsetDateTime capturedAt
+  ) {
+    pulsePlayers.forEach((id, idPlayers) -> {
+      for (Player player : idPlayers) {
+        player.setSnapshot(new PlayerSnapshot(
+            capturedAt,
+            findSummary(summaries, id, player.getRace()),
+            characters.get(id)
+        ));
+      }
+    });
+  }
+
+  private static PlayerSummary findSummary(
+      Map<Long, List<PlayerSummary>> summaries, Long id, Race race
+  ) {
+    return summaries.getOrDefault(id, List.of())
         .stream()
-        .collect(Collectors.toMap(PlayerCharacter::getId, Function.identity()));
+        .filter(s -> s.getRace() == race)
+        .findAny()
+        .orElse(null);
+  }
+
+  private static Map<Long, List<PlayerSummary>> groupSummaries(List<PlayerSummary> summaries) {
+    return summaries.stream().collect(Collectors.groupingBy(
+        PlayerSummary::getPlayerCharacterId,
+        HashMap::new,
+        Collectors.toCollection(ArrayList::new)
+    ));
+  }
+
+  private static Map<Long, PlayerCharacter> groupCharacters(List<PlayerCharacter> characters) {
+    return characters.stream().collect(Collectors.toMap(
+        PlayerCharacter::getId,
+        Function.identity(),
+        (c1, c2) -> c1,
+        HashMap::new
+    ));
+  }
+
+  private static List<Pair<Boolean, String>> renderPlayerGroups(
+      List<List<Player>> playerGroups,
+      RuleSet ruleSet,
+      List<Map<Long, List<Player>>> pulsePlayerGroups,
+      Map<Long, List<PlayerSummary>> summaries,
+      Map<Long, PlayerCharacter> characters,
+      ConversionService conversionService
+  ) {
+    List<Pair<Boolean, String>> results = new ArrayList<>(playerGroups.size());
+    for (int i = 0; i < playerGroups.size(); i++) {
+      results.add(renderPlayers(
+          playerGroups.get(i),
+          ruleSet,
+          pulsePlayerGroups.get(i),
+          summaries,
+          characters,
+          conversionService
+      ));
+    }
+    return results;
+  }
+
+  private static Pair<Boolean, String> renderPlayers(
+      List<Player> players,
+      RuleSet ruleSet,
+      Map<Long, List<Player>> pulsePlayers,
+      Map<Long, List<PlayerSummary>> summaries,
+      Map<Long, PlayerCharacter> characters,
+      ConversionService conversionService
+  ) {
+    boolean verified = summaries != null;
+    Map<Long, Map<Race, List<String>>> errors = verified
+        ? checkPulsePlayers(pulsePlayers, summaries, ruleSet)
+        : Map.of();
     Map<Player, Long> pulsePlayerIdMap = pulsePlayers.entrySet()
         .stream()
         .flatMap(e -> e.getValue().stream().map(p -> Pair.of(e.getKey(), p)))
         .collect(Collectors.toMap(Pair::getSecond, Pair::getFirst, (id1, id2) -> id1));
+    Set<Long> staleIds = pulsePlayers.keySet()
+        .stream()
+        .filter(id -> isStale(id, summaries, characters))
+        .collect(Collectors.toSet());
 
-    return Pair.of(
-        errors.isEmpty(),
-        players.stream()
-            .map(p -> formatPlayer(p, characters, pulsePlayerIdMap, errors, conversionService))
-            .collect(Collectors.joining("\n"))
-    );
+    String result = players.stream()
+        .map(p -> formatPlayer(
+            p,
+            characters,
+            pulsePlayerIdMap,
+            errors,
+            staleIds,
+            verified,
+            conversionService
+        ))
+        .collect(Collectors.joining("\n"));
+    if (!verified) {
+      result += "\n" + PULSE_UNAVAILABLE_MESSAGE;
+    }
+    return Pair.of(verified && errors.isEmpty(), result);
+  }
+
+  /**
+   * <p>
+   * Checks if the response contains last known data. Snapshots must not be captured from
+   * such responses because they would present old data as fresh. Last known data of inactive
+   * characters has no summaries, so the whole response is checked rather than separate ids.
+   * </p>
+   *
+   * @param summaries  fetched summaries
+   * @param characters fetched characters
+   * @return true if any summary or character is stale
+   */
+  private static boolean isStale(
+      Map<Long, List<PlayerSummary>> summaries, Map<Long, PlayerCharacter> characters
+  ) {
+    return characters.values().stream().anyMatch(PlayerCharacter::isStale)
+        || summaries.values()
+        .stream()
+        .flatMap(List::stream)
+        .anyMatch(PlayerSummary::isStale);
+  }
+
+  private static boolean isStale(
+      Long id, Map<Long, List<PlayerSummary>> summaries, Map<Long, PlayerCharacter> characters
+  ) {
+    PlayerCharacter character = characters.get(id);
+    if (character != null && character.isStale()) {
+      return true;
+    }
+    return summaries != null
+        && summaries.getOrDefault(id, List.of()).stream().anyMatch(PlayerSummary::isStale);
+  }
+
+  private static Map<Long, Map<Race, List<String>>> checkPulsePlayers(
+      Map<Long, List<Player>> pulsePlayers,
+      Map<Long, List<PlayerSummary>> summaries,
+      RuleSet ruleSet
+  ) {
+    RuleSetEvaluator evaluator = RuleSetEvaluator.compile(ruleSet);
+    Map<Long, Map<Race, List<String>>> errors = new HashMap<>();
+    pulsePlayers.forEach((id, idPlayers) -> {
+      for (Player player : idPlayers) {
+        PlayerSummary summary = findSummary(summaries, id, player.getRace());
+        int violations = evaluator.evaluate(summary);
+        //build error strings only for players that will be rendered with errors
+        if (violations != 0) {
+          errors.computeIfAbsent(id, i -> new EnumMap<>(Race.class))
+              .put(player.getRace(), RuleSetEvaluator.describe(violations, summary));
+        }
+      }
+    });
+    return errors;
+  }
+
+  /**
+   * <p>
+   * Applies {@link #PULSE_DEADLINE} to the supplied request and converts errors to an empty
+   * {@code Optional}. Requests that are subscribed to at the same time share the same deadline.
+   * </p>
+   *
+   * @param request pulse request
+   * @param name    request name, used for logging
+   * @param <T>     response type
+   * @return {@code Optional} of response, or an empty {@code Optional} if the request has failed
+   */
+  public static <T> Mono<Optional<T>> fetchOptional(Mono<T> request, String name) {
+    return request
+        .timeout(PULSE_DEADLINE)
+        .map(Optional::of)
+        .onErrorResume(t -> {
+          LOG.warn("Pulse {} request has failed: {}", name, t.toString());
+          return Mono.just(Optional.empty());
+        });
+  }
+
+  /**
+   * <p>
+   * Checks if a pulse request has failed because pulse is unavailable: the API call has failed,
+   * or it was rejected by the circuit breaker or the bulkhead.
+   * </p>
+   *
+   * @param t error of a pulse request
+   * @return true if pulse is unavailable, false if {@code t} is an unrelated error
+   */
+  public static boolean isPulseUnavailable(Throwable t) {
+    return t instanceof WebClientException
+        || t instanceof CallNotPermittedException
+        || t instanceof BulkheadFullException;
   }
 
   public static String getHeader(
@@ -169,16 +543,24 @@ public final class LineupUtil {
       Map<Long, PlayerCharacter> characters,
       Map<Player, Long> pulsePlayerIdMap,
       Map<Long, Map<Race, List<String>>> errors,
+      Set<Long> staleIds,
+      boolean verified,
       ConversionService conversionService
   ) {
     Long pulseId = pulsePlayerIdMap.get(player);
     List<String> curErrors = errors.getOrDefault(pulseId, Map.of())
         .getOrDefault(player.getRace(), List.of());
-    PlayerStatus status = pulseId == null
+    PlayerStatus status = pulseId == null || !verified
         ? PlayerStatus.UNKNOWN
         : curErrors.isEmpty() ? PlayerStatus.SUCCESS : PlayerStatus.ERROR;
     PlayerCharacter character = pulseId == null ? null : characters.get(pulseId);
-    LineupPlayerData data = new LineupPlayerData(player, character, status, curErrors);
+    LineupPlayerData data = new LineupPlayerData(
+        player,
+        character,
+        status,
+        curErrors,
+        pulseId != null && staleIds.contains(pulseId)
+    );
     return conversionService.convert(data, String.class);
   }
 
@@ -0,0 +1,199 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * <p>
+ * Merges id lookups with equal keys into batches. A batch is sent when the window that was
+ * opened by its first lookup closes, or when the batch reaches the max size, whichever
+ * happens first. The batch response is demultiplexed back to the waiting callers, every
+ * caller receives only the values of its own ids. Cancelled callers are removed from pending
+ * batches.
+ * </p>
+ *
+ * @param <K> batch key type, must implement {@code equals} and {@code hashCode}
+ * @param <V> value type
+ */
+public class MicroBatcher<K, V> {
+
+  private final Duration window;
+  private final int maxSize;
+  private final BiFunction<? super K, Long[], Mono<List<V>>> fetcher;
+  private final Function<? super V, Long> idGetter;
+  private final Scheduler scheduler;
+  private final Map<K, Batch> batches = new HashMap<>();
+  private final AtomicLong lookupCount = new AtomicLong();
+  private final AtomicLong batchCount = new AtomicLong();
+
+  public MicroBatcher(
+      Duration window,
+      int maxSize,
+      BiFunction<? super K, Long[], Mono<List<V>>> fetcher,
+      Function<? super V, Long> idGetter,
+      Scheduler scheduler
+  ) {
+    this.window = window;
+    this.maxSize = maxSize;
+    this.fetcher = fetcher;
+    this.idGetter = idGetter;
+    this.scheduler = scheduler;
+  }
+
+  public Mono<List<V>> get(K key, Long... ids) {
+    return Mono.create(sink -> {
+      lookupCount.incrementAndGet();
+      Batch full = null;
+      synchronized (batches) {
+        Batch batch = batches.computeIfAbsent(key, Batch::new);
+        Waiter waiter = batch.add(ids, sink);
+        sink.onCancel(() -> cancel(batch, waiter));
+        if (batch.ids.size() >= maxSize) {
+          batches.remove(key);
+          full = batch;
+        } else if (batch.timer == null) {
+          batch.timer = scheduler.schedule(
+              () -> flush(batch),
+              window.toNanos(),
+              TimeUnit.NANOSECONDS
+          );
+        }
+      }
+      if (full != null) {
+        if (full.timer != null) {
+          full.timer.dispose();
+        }
+        send(full);
+      }
+    });
+  }
+
+  /**
+   * <p>
+   * Removes a cancelled waiter from its batch if the batch is still pending. The batch is
+   * discarded when it has no waiters left.
+   * </p>
+   *
+   * @param batch  pending batch
+   * @param waiter cancelled waiter
+   */
+  private void cancel(Batch batch, Waiter waiter) {
+    Disposable timer;
+    synchronized (batches) {
+      if (batches.get(batch.key) != batch || !batch.remove(waiter)) {
+        return;
+      }
+      if (!batch.waiters.isEmpty()) {
+        return;
+      }
+      batches.remove(batch.key);
+      timer = batch.timer;
+    }
+    if (timer != null) {
+      timer.dispose();
+    }
+  }
+
+  private void flush(Batch batch) {
+    synchronized (batches) {
+      if (!batches.remove(batch.key, batch)) {
+        return;
+      }
+    }
+    send(batch);
+  }
+
+  private void send(Batch batch) {
+    batchCount.incrementAndGet();
+    fetcher.apply(batch.key, batch.ids.toArray(Long[]::new))
+        .defaultIfEmpty(List.of())
+        .subscribe(batch::complete, batch::error);
+  }
+
+  public long getLookupCount() {
+    return lookupCount.get();
+  }
+
+  public long getBatchCount() {
+    return batchCount.get();
+  }
+
+  private final class Batch {
+
+    private final K key;
+    private final Set<Long> ids = new LinkedHashSet<>();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private Disposable timer;
+
+    private Batch(K key) {
+      this.key = key;
+    }
+
+    private Waiter add(Long[] waiterIds, MonoSink<List<V>> sink) {
+      Waiter waiter = new Waiter(new LinkedHashSet<>(Arrays.asList(waiterIds)), sink);
+      ids.addAll(waiter.ids);
+      waiters.add(waiter);
+      return waiter;
+    }
+
+    private boolean remove(Waiter waiter) {
+      if (!waiters.remove(waiter)) {
+        return false;
+      }
+      ids.clear();
+      for (Waiter remaining : waiters) {
+        ids.addAll(remaining.ids);
+      }
+      return true;
+    }
+
+    private void complete(List<V> values) {
+      Map<Long, List<V>> byId = values.stream().collect(Collectors.groupingBy(idGetter));
+      for (Waiter waiter : waiters) {
+        List<V> result = new ArrayList<>();
+        for (Long id : waiter.ids) {
+          result.addAll(byId.getOrDefault(id, List.of()));
+        }
+        waiter.sink.success(result);
+      }
+    }
+
+    private void error(Throwable t) {
+      for (Waiter waiter : waiters) {
+        waiter.sink.error(t);
+      }
+    }
+
+  }
+
+  private final class Waiter {
+
+    private final Set<Long> ids;
+    private final MonoSink<List<V>> sink;
+
+    private Waiter(Set<Long> ids, MonoSink<List<V>> sink) {
+      this.ids = ids;
+      this.sink = sink;
+    }
+
+  }
+
+}
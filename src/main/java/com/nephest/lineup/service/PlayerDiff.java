@@ -0,0 +1,105 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import com.nephest.lineup.Util;
+import com.nephest.lineup.data.Player;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * <p>
+ * Difference between saved players of a discord user and a resubmitted lineup. Players are
+ * matched by slot. Matched players with the same data and race are unchanged, saved players are
+ * reused for them, so their validation results(snapshots) are reused too.
+ * </p>
+ */
+public final class PlayerDiff {
+
+  private final List<Player> players;
+  private final List<Player> changedPlayers;
+  private final List<Player> removedPlayers;
+
+  private PlayerDiff(
+      List<Player> players, List<Player> changedPlayers, List<Player> removedPlayers
+  ) {
+    this.players = players;
+    this.changedPlayers = changedPlayers;
+    this.removedPlayers = removedPlayers;
+  }
+
+  /**
+   * <p>
+   * Compares players. Changed players that replace saved players receive ids of replaced
+   * players, so saving them updates existing rows instead of inserting new ones. Unchanged pulse
+   * players without snapshots are considered changed, they must be verified again.
+   * </p>
+   *
+   * @param savedPlayers     previously saved players of a discord user
+   * @param submittedPlayers new players of the same discord user
+   * @return diff
+   */
+  public static PlayerDiff of(List<Player> savedPlayers, List<Player> submittedPlayers) {
+    Map<Integer, Player> savedSlots = new HashMap<>(savedPlayers.size());
+    savedPlayers.forEach(p -> savedSlots.put(p.getSlot(), p));
+    List<Player> players = new ArrayList<>(submittedPlayers.size());
+    List<Player> changedPlayers = new ArrayList<>();
+    for (Player player : submittedPlayers) {
+      Player saved = savedSlots.remove(player.getSlot());
+      if (isUnchanged(saved, player)) {
+        players.add(saved);
+        continue;
+      }
+
+      if (saved != null) {
+        player.setId(saved.getId());
+      }
+      players.add(player);
+      changedPlayers.add(player);
+    }
+    return new PlayerDiff(players, changedPlayers, new ArrayList<>(savedSlots.values()));
+  }
+
+  private static boolean isUnchanged(Player saved, Player player) {
+    return saved != null
+        && Objects.equals(saved.getData(), player.getData())
+        && saved.getRace() == player.getRace()
+        && (saved.getSnapshot() != null || !Util.isInteger(saved.getData()));
+  }
+
+  /**
+   * <p>Resulting players, a mix of reused saved players and changed players.</p>
+   *
+   * @return players in submitted order
+   */
+  public List<Player> getPlayers() {
+    return players;
+  }
+
+  /**
+   * <p>Players that should be inserted or updated.</p>
+   *
+   * @return changed players
+   */
+  public List<Player> getChangedPlayers() {
+    return changedPlayers;
+  }
+
+  /**
+   * <p>Saved players whose slots are not used anymore.</p>
+   *
+   * @return removed players
+   */
+  public List<Player> getRemovedPlayers() {
+    return removedPlayers;
+  }
+
+  public boolean isEmpty() {
+    return changedPlayers.isEmpty() && removedPlayers.isEmpty();
+  }
+
+}
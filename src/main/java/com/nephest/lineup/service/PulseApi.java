@@ -3,16 +3,45 @@
 
 package com.nephest.lineup.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nephest.lineup.config.PulseApiSettings;
+import com.nephest.lineup.config.PulseResilienceSettings;
 import com.nephest.lineup.data.Race;
 import com.nephest.lineup.data.pulse.PlayerCharacter;
 import com.nephest.lineup.data.pulse.PlayerSummary;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+/**
+ * <p>
+ * Non-blocking SC2 Pulse API client. All methods return cold {@code Mono}s, nothing is sent
+ * until subscription.
+ * </p>
+ */
 @Service
 public class PulseApi {
 
@@ -23,57 +52,517 @@ public class PulseApi {
   public static final String
       SUMMARY_TEMPLATE
       = "https://www.nephest.com/sc2/api/character/{ids}/summary/1v1/{depth}/{races}";
-  private final RestTemplate restTemplate;
+  public static final String CHARACTER_CACHE_NAME = "pulse.character";
+  public static final String SUMMARY_REQUEST_METRIC_NAME = "pulse.summary.requests";
+  public static final String SUMMARY_COALESCED_METRIC_NAME = "pulse.summary.coalesced";
+  public static final String BATCH_LOOKUP_METRIC_NAME = "pulse.batch.lookups";
+  public static final String BATCH_REQUEST_METRIC_NAME = "pulse.batch.requests";
+  public static final String RESILIENCE_NAME = "pulse";
+  private static final String CHARACTER_BATCH_KEY = "character";
+  private static final Logger LOG = LoggerFactory.getLogger(PulseApi.class);
+
+  private final WebClient webClient;
+  private final Cache<Long, PlayerCharacter> characterCache;
+  private final SingleFlight<SummaryKey, List<PlayerSummary>> summarySingleFlight
+      = new SingleFlight<>();
+  private final int chunkSize;
+  private final int chunkParallelism;
+  private final MicroBatcher<String, PlayerCharacter> characterBatcher;
+  private final MicroBatcher<SummaryKey, PlayerSummary> summaryBatcher;
+  private final CircuitBreaker circuitBreaker;
+  private final Bulkhead bulkhead;
+  private final Cache<Long, PlayerCharacter> staleCharacterCache;
+  private final Cache<SummaryKey, StaleSummaries> staleSummaryCache;
 
   @Autowired
-  public PulseApi(RestTemplate restTemplate) {
-    this.restTemplate = restTemplate;
+  public PulseApi(
+      WebClient webClient,
+      PulseApiSettings settings,
+      PulseResilienceSettings resilienceSettings,
+      MeterRegistry meterRegistry
+  ) {
+    this.webClient = webClient;
+    this.circuitBreaker = resilienceSettings.createCircuitBreaker(RESILIENCE_NAME);
+    this.bulkhead = resilienceSettings.createBulkhead(RESILIENCE_NAME);
+    this.staleCharacterCache = Caffeine.newBuilder()
+        .maximumSize(resilienceSettings.getStaleMaxSize())
+        .expireAfterWrite(resilienceSettings.getStaleTtl())
+        .build();
+    this.staleSummaryCache = Caffeine.newBuilder()
+        .maximumSize(resilienceSettings.getStaleMaxSize())
+        .expireAfterWrite(resilienceSettings.getStaleTtl())
+        .build();
+    this.characterCache = Caffeine.newBuilder()
+        .maximumSize(settings.getCharacterCacheMaxSize())
+        .expireAfterWrite(settings.getCharacterCacheTtl())
+        .recordStats()
+        .build();
+    this.chunkSize = settings.getChunkSize();
+    this.chunkParallelism = settings.getChunkParallelism();
+    if (settings.isBatchEnabled()) {
+      characterBatcher = new MicroBatcher<>(
+          settings.getBatchWindow(),
+          settings.getBatchMaxSize(),
+          (key, ids) -> fetchCharacters(ids),
+          PlayerCharacter::getId,
+          Schedulers.parallel()
+      );
+      summaryBatcher = new MicroBatcher<>(
+          settings.getBatchWindow(),
+          settings.getBatchMaxSize(),
+          (key, ids) -> fetchSummaries(new SummaryKey(key.getDepth(), key.getRaces(), ids)),
+          PlayerSummary::getPlayerCharacterId,
+          Schedulers.parallel()
+      );
+      registerBatchMetrics(meterRegistry, characterBatcher, "character");
+      registerBatchMetrics(meterRegistry, summaryBatcher, "summary");
+    } else {
+      characterBatcher = null;
+      summaryBatcher = null;
+    }
+    CaffeineCacheMetrics.monitor(meterRegistry, characterCache, CHARACTER_CACHE_NAME);
+    FunctionCounter.builder(
+            SUMMARY_REQUEST_METRIC_NAME,
+            summarySingleFlight,
+            SingleFlight::getRequestCount
+        )
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            SUMMARY_COALESCED_METRIC_NAME,
+            summarySingleFlight,
+            SingleFlight::getCoalescedCount
+        )
+        .description("Summary requests that were served by an identical in-flight request")
+        .register(meterRegistry);
+  }
+
+  private static void registerBatchMetrics(
+      MeterRegistry meterRegistry, MicroBatcher<?, ?> batcher, String type
+  ) {
+    FunctionCounter.builder(BATCH_LOOKUP_METRIC_NAME, batcher, MicroBatcher::getLookupCount)
+        .tag("type", type)
+        .register(meterRegistry);
+    FunctionCounter.builder(BATCH_REQUEST_METRIC_NAME, batcher, MicroBatcher::getBatchCount)
+        .tag("type", type)
+        .register(meterRegistry);
   }
 
-  public List<PlayerCharacter> getCharacters(Long... ids) {
+  public static String joinIds(Long... ids) {
+    return Arrays.stream(ids).map(String::valueOf).collect(Collectors.joining(","));
+  }
+
+  public static String joinRaces(Race... races) {
+    return Arrays.stream(races).map(Race::name).collect(Collectors.joining(","));
+  }
+
+  /**
+   * <p>
+   * Gets characters from the cache, only missing characters are fetched from the API.
+   * Character metadata rarely changes, so it's cached for a long time. Missing characters
+   * are merged with concurrent lookups of other callers if batching is enabled. If the API
+   * call fails, last known characters of this caller's ids are served instead.
+   * </p>
+   *
+   * @param ids character ids
+   * @return characters, in no particular order
+   */
+  public Mono<List<PlayerCharacter>> getCharacters(Long... ids) {
     if (ids.length == 0) {
-      return List.of();
+      return Mono.just(List.of());
     }
 
-    String idString = Arrays.stream(ids).map(String::valueOf).collect(Collectors.joining(","));
-    return List.of(restTemplate.getForObject(
-        CHARACTER_TEMPLATE,
-        PlayerCharacter[].class,
-        idString
-    ));
+    return Mono.defer(() -> {
+      Map<Long, PlayerCharacter> cached = characterCache.getAllPresent(Arrays.asList(ids));
+      Long[] missing = Arrays.stream(ids)
+          .filter(id -> !cached.containsKey(id))
+          .distinct()
+          .toArray(Long[]::new);
+      if (missing.length == 0) {
+        return Mono.just(List.copyOf(cached.values()));
+      }
+
+      Mono<List<PlayerCharacter>> request = characterBatcher == null
+          ? fetchCharacters(missing)
+          : characterBatcher.get(CHARACTER_BATCH_KEY, missing);
+      return request
+          .onErrorResume(t -> getStaleCharacters(t, missing))
+          .map(fetched -> {
+            List<PlayerCharacter> result = new ArrayList<>(cached.size() + fetched.size());
+            result.addAll(cached.values());
+            for (PlayerCharacter character : fetched) {
+              if (!character.isStale()) {
+                characterCache.put(character.getId(), character);
+              }
+              result.add(character);
+            }
+            return result;
+          });
+    });
   }
 
-  public List<PlayerSummary> getSummaries(
-      int depth, Long... ids
-  ) {
-    if (ids.length == 0) {
-      return List.of();
+  private Mono<List<PlayerCharacter>> fetchCharacters(Long... ids) {
+    return fetchChunked(ids, this::requestCharacters)
+        .doOnNext(characters -> characters.forEach(c -> staleCharacterCache.put(c.getId(), c)));
+  }
+
+  private Mono<List<PlayerCharacter>> requestCharacters(Long... ids) {
+    return protect(webClient.get()
+        .uri(CHARACTER_TEMPLATE, joinIds(ids))
+        .retrieve()
+        .bodyToMono(PlayerCharacter[].class)
+        .map(Arrays::asList)
+        .defaultIfEmpty(List.of()));
+  }
+
+  /**
+   * <p>
+   * Gets last known characters. Some characters may be missing, which is fine because
+   * characters are used for presentation only.
+   * </p>
+   *
+   * @param error original error, it's propagated if there is no stale data
+   * @param ids   character ids
+   * @return last known characters marked as stale
+   */
+  private Mono<List<PlayerCharacter>> getStaleCharacters(Throwable error, Long... ids) {
+    Map<Long, PlayerCharacter> stale = staleCharacterCache.getAllPresent(Arrays.asList(ids));
+    if (stale.isEmpty()) {
+      return Mono.error(error);
     }
 
-    String idString = Arrays.stream(ids).map(String::valueOf).collect(Collectors.joining(","));
-    return List.of(restTemplate.getForObject(
-        SHORT_SUMMARY_TEMPLATE,
-        PlayerSummary[].class,
-        idString,
-        depth
-    ));
+    LOG.warn("Pulse character request has failed, serving stale data: {}", error.toString());
+    return Mono.just(stale.values()
+        .stream()
+        .map(PulseApi::copyStale)
+        .collect(Collectors.toList()));
   }
 
-  public List<PlayerSummary> getSummaries(
+  private static PlayerCharacter copyStale(PlayerCharacter character) {
+    PlayerCharacter copy = new PlayerCharacter(
+        character.getId(),
+        character.getAccountId(),
+        character.getRegion(),
+        character.getRealm(),
+        character.getBattlenetId(),
+        character.getName(),
+        character.getClanId()
+    );
+    copy.setStale(true);
+    return copy;
+  }
+
+  public CacheStats getCharacterCacheStats() {
+    return characterCache.stats();
+  }
+
+  /**
+   * <p>
+   * Gets summaries of all races. Concurrent requests with the same depth and ids are
+   * coalesced into one API call.
+   * </p>
+   *
+   * @param depth depth in days
+   * @param ids   character ids
+   * @return summaries, in no particular order
+   */
+  public Mono<List<PlayerSummary>> getSummaries(
+      int depth, Long... ids
+  ) {
+    return getSummaries(depth, null, ids);
+  }
+
+  /**
+   * <p>
+   * Gets summaries of supplied races. Concurrent requests with the same depth, ids, and races
+   * are coalesced into one API call. If batching is enabled, requests with the same depth and
+   * races but different ids are merged into one API call too. If the API call fails, last
+   * known summaries of this caller's ids are served instead, so a batch failure doesn't
+   * fail callers that have last known data.
+   * </p>
+   *
+   * @param depth depth in days
+   * @param races races to get summaries for, all races are used if null
+   * @param ids   character ids
+   * @return summaries, in no particular order
+   */
+  public Mono<List<PlayerSummary>> getSummaries(
       int depth, Race[] races, Long... ids
   ) {
     if (ids.length == 0) {
-      return List.of();
+      return Mono.just(List.of());
+    }
+
+    SummaryKey key = new SummaryKey(depth, races, ids);
+    return summarySingleFlight.execute(key, () -> (summaryBatcher == null
+        ? fetchSummaries(key)
+        : summaryBatcher.get(new SummaryKey(key.getDepth(), key.getRaces()), key.getIds()))
+        .onErrorResume(t -> getStaleSummaries(t, key)));
+  }
+
+  /**
+   * <p>
+   * Gets summaries of requested races only. Ids that request the same race set are
+   * grouped into one race-filtered request, groups are fetched concurrently. This is
+   * cheaper than fetching summaries of all races when most characters are requested for
+   * one race.
+   * </p>
+   *
+   * @param depth depth in days
+   * @param races requested races of each character id, all races are used if race set is empty
+   * @return summaries, in no particular order
+   */
+  public Mono<List<PlayerSummary>> getSummaries(int depth, Map<Long, Set<Race>> races) {
+    if (races.isEmpty()) {
+      return Mono.just(List.of());
+    }
+
+    Map<Set<Race>, List<Long>> plan = races.entrySet()
+        .stream()
+        .collect(Collectors.groupingBy(
+            Map.Entry::getValue,
+            Collectors.mapping(Map.Entry::getKey, Collectors.toList())
+        ));
+    return Flux.fromIterable(plan.entrySet())
+        .flatMap(e -> getSummaries(
+            depth,
+            e.getKey().isEmpty() ? null : e.getKey().toArray(Race[]::new),
+            e.getValue().toArray(Long[]::new)
+        ))
+        .flatMapIterable(Function.identity())
+        .collectList();
+  }
+
+  private Mono<List<PlayerSummary>> fetchSummaries(SummaryKey key) {
+    return fetchChunked(
+        key.getIds(),
+        ids -> requestSummaries(key.getDepth(), key.getRaces(), ids)
+    )
+        .doOnNext(summaries -> rememberSummaries(key, summaries));
+  }
+
+  private static Set<Race> getRequestedRaces(SummaryKey key) {
+    return key.getRaces() == null
+        ? EnumSet.allOf(Race.class)
+        : EnumSet.copyOf(Arrays.asList(key.getRaces()));
+  }
+
+  /**
+   * <p>
+   * Saves summaries as last known data. Summaries of requested races are replaced,
+   * summaries of other races are kept, so a character without summaries of requested races
+   * is remembered as inactive in these races. Requested races are remembered as known, a
+   * character is never considered inactive in races that were not requested.
+   * </p>
+   *
+   * @param key       request key
+   * @param summaries response
+   */
+  private void rememberSummaries(SummaryKey key, List<PlayerSummary> summaries) {
+    Map<Long, List<PlayerSummary>> byId = summaries.stream()
+        .collect(Collectors.groupingBy(PlayerSummary::getPlayerCharacterId));
+    Set<Race> races = getRequestedRaces(key);
+    for (Long id : key.getIds()) {
+      SummaryKey staleKey = new SummaryKey(key.getDepth(), null, id);
+      List<PlayerSummary> current = new ArrayList<>(byId.getOrDefault(id, List.of()));
+      Set<Race> knownRaces = EnumSet.copyOf(races);
+      StaleSummaries previous = key.getRaces() == null
+          ? null
+          : staleSummaryCache.getIfPresent(staleKey);
+      if (previous != null) {
+        previous.getSummaries()
+            .stream()
+            .filter(s -> !races.contains(s.getRace()))
+            .forEach(current::add);
+        knownRaces.addAll(previous.getRaces());
+      }
+      staleSummaryCache.put(staleKey, new StaleSummaries(knownRaces, current));
+    }
+  }
+
+  /**
+   * <p>
+   * Gets last known summaries. All ids must have last known data of all requested races,
+   * otherwise characters without data would be considered inactive.
+   * </p>
+   *
+   * @param error original error, it's propagated if there is no stale data
+   * @param key   request key
+   * @return last known summaries marked as stale
+   */
+  private Mono<List<PlayerSummary>> getStaleSummaries(Throwable error, SummaryKey key) {
+    Set<Race> races = getRequestedRaces(key);
+    List<PlayerSummary> result = new ArrayList<>();
+    for (Long id : key.getIds()) {
+      StaleSummaries stale
+          = staleSummaryCache.getIfPresent(new SummaryKey(key.getDepth(), null, id));
+      if (stale == null || !stale.getRaces().containsAll(races)) {
+        return Mono.error(error);
+      }
+      stale.getSummaries()
+          .stream()
+          .filter(s -> key.getRaces() == null || races.contains(s.getRace()))
+          .map(PulseApi::copyStale)
+          .forEach(result::add);
+    }
+
+    LOG.warn("Pulse summary request has failed, serving stale data: {}", error.toString());
+    return Mono.just(result);
+  }
+
+  private static PlayerSummary copyStale(PlayerSummary summary) {
+    PlayerSummary copy = new PlayerSummary(
+        summary.getPlayerCharacterId(),
+        summary.getRace(),
+        summary.getGames(),
+        summary.getRatingAvg(),
+        summary.getRatingMax(),
+        summary.getRatingLast(),
+        summary.getGlobalRankLast()
+    );
+    copy.setStale(true);
+    return copy;
+  }
+
+  private Mono<List<PlayerSummary>> requestSummaries(int depth, Race[] races, Long... ids) {
+    WebClient.RequestHeadersSpec<?> spec = races == null
+        ? webClient.get().uri(SHORT_SUMMARY_TEMPLATE, joinIds(ids), depth)
+        : webClient.get().uri(SUMMARY_TEMPLATE, joinIds(ids), depth, joinRaces(races));
+    return protect(spec
+        .retrieve()
+        .bodyToMono(PlayerSummary[].class)
+        .map(Arrays::asList)
+        .defaultIfEmpty(List.of()));
+  }
+
+  /**
+   * <p>
+   * Wraps an outbound call into the bulkhead and the circuit breaker. The circuit breaker is
+   * checked first, so no bulkhead permits are taken while it's open.
+   * </p>
+   *
+   * @param request outbound call
+   * @param <T>     response type
+   * @return protected call
+   */
+  private <T> Mono<T> protect(Mono<T> request) {
+    return request
+        .transformDeferred(BulkheadOperator.of(bulkhead))
+        .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+  }
+
+  /**
+   * <p>
+   * Splits ids into chunks of {@code chunkSize} to keep URLs and responses reasonably small.
+   * Up to {@code chunkParallelism} chunks are fetched concurrently, results are concatenated
+   * in chunk order. Fails if any chunk fails.
+   * </p>
+   *
+   * @param ids     ids to fetch
+   * @param request request of a single chunk
+   * @param <T>     value type
+   * @return values of all chunks
+   */
+  private <T> Mono<List<T>> fetchChunked(Long[] ids, Function<Long[], Mono<List<T>>> request) {
+    if (ids.length <= chunkSize) {
+      return request.apply(ids);
+    }
+
+    return Flux.range(0, (ids.length + chunkSize - 1) / chunkSize)
+        .map(i -> Arrays.copyOfRange(
+            ids,
+            i * chunkSize,
+            Math.min(ids.length, (i + 1) * chunkSize)
+        ))
+        .flatMapSequential(request, chunkParallelism)
+        .flatMapIterable(Function.identity())
+        .collectList();
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  public SingleFlight<SummaryKey, List<PlayerSummary>> getSummarySingleFlight() {
+    return summarySingleFlight;
+  }
+
+  /**
+   * <p>Last known summaries of a character and races these summaries cover.</p>
+   */
+  private static final class StaleSummaries {
+
+    private final Set<Race> races;
+    private final List<PlayerSummary> summaries;
+
+    private StaleSummaries(Set<Race> races, List<PlayerSummary> summaries) {
+      this.races = races;
+      this.summaries = summaries;
+    }
+
+    public Set<Race> getRaces() {
+      return races;
+    }
+
+    public List<PlayerSummary> getSummaries() {
+      return summaries;
+    }
+
+  }
+
+  /**
+   * <p>
+   * Normalized summary request key. Ids and races are sorted and deduplicated, so requests
+   * that differ only in parameter order are considered equal.
+   * </p>
+   */
+  public static final class SummaryKey {
+
+    private final int depth;
+    private final Race[] races;
+    private final Long[] ids;
+
+    public SummaryKey(int depth, Race[] races, Long... ids) {
+      this.depth = depth;
+      this.races = races == null
+          ? null
+          : Arrays.stream(races).distinct().sorted().toArray(Race[]::new);
+      this.ids = Arrays.stream(ids).distinct().sorted().toArray(Long[]::new);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof SummaryKey)) {
+        return false;
+      }
+      SummaryKey that = (SummaryKey) o;
+      return depth == that.depth
+          && Arrays.equals(races, that.races)
+          && Arrays.equals(ids, that.ids);
+    }
+
+    @Override
+    public int hashCode() {
+      int result = Objects.hash(depth);
+      result = 31 * result + Arrays.hashCode(races);
+      result = 31 * result + Arrays.hashCode(ids);
+      return result;
+    }
+
+    public int getDepth() {
+      return depth;
+    }
+
+    public Race[] getRaces() {
+      return races;
+    }
+
+    public Long[] getIds() {
+      return ids;
     }
 
-    String idString = Arrays.stream(ids).map(String::valueOf).collect(Collectors.joining(","));
-    return List.of(restTemplate.getForObject(
-        SUMMARY_TEMPLATE,
-        PlayerSummary[].class,
-        idString,
-        depth,
-        races
-    ));
   }
 
 }
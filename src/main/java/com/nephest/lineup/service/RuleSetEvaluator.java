@@ -0,0 +1,304 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * <p>
+ * Immutable {@link RuleSet} compiled into primitive bounds. Missing bounds are replaced with
+ * {@code Integer.MIN_VALUE}/{@code Integer.MAX_VALUE}, so every rule is a single comparison
+ * that can't fail when the rule is not set. {@link #evaluate(int, int, int, int)} doesn't
+ * allocate, error strings are built by {@link #describe(int, int, int, int, int)} only for
+ * violations that need to be rendered.
+ * </p>
+ */
+public final class RuleSetEvaluator {
+
+  public static final int GAMES_MIN = 1;
+  public static final int RATING_MAX = 1 << 1;
+  public static final int RATING_MIN = 1 << 2;
+  public static final int RATING_AVG_MAX = 1 << 3;
+  public static final int RATING_AVG_MIN = 1 << 4;
+  public static final int RATING_MAX_MAX = 1 << 5;
+  public static final int RATING_MAX_MIN = 1 << 6;
+  public static final int INACTIVE = 1 << 7;
+  public static final String INACTIVE_ERROR = "Player is inactive(no games played)";
+  public static final int PARALLEL_THRESHOLD = 1 << 14;
+
+  private final int gamesMin;
+  private final int ratingMin;
+  private final int ratingMax;
+  private final int ratingAvgMin;
+  private final int ratingAvgMax;
+  private final int ratingMaxMin;
+  private final int ratingMaxMax;
+
+  private RuleSetEvaluator(RuleSet ruleSet) {
+    gamesMin = lowerBound(ruleSet.getGamesMin());
+    ratingMax = upperBound(ruleSet.getRatingMax());
+    ratingMin = lowerBound(ruleSet.getRatingMin());
+    ratingAvgMax = upperBound(ruleSet.getRatingAvgMax());
+    ratingAvgMin = lowerBound(ruleSet.getRatingAvgMin());
+    ratingMaxMax = upperBound(ruleSet.getRatingMaxMax());
+    ratingMaxMin = lowerBound(ruleSet.getRatingMaxMin());
+  }
+
+  public static RuleSetEvaluator compile(RuleSet ruleSet) {
+    return new RuleSetEvaluator(ruleSet);
+  }
+
+  private static int lowerBound(Integer bound) {
+    return bound == null ? Integer.MIN_VALUE : bound;
+  }
+
+  private static int upperBound(Integer bound) {
+    return bound == null ? Integer.MAX_VALUE : bound;
+  }
+
+  /**
+   * <p>Evaluates player stats.</p>
+   *
+   * @param games      games played
+   * @param ratingLast last rating
+   * @param ratingAvg  average rating
+   * @param ratingMax  max rating
+   * @return violation bitmask, 0 if there are no violations
+   */
+  public int evaluate(int games, int ratingLast, int ratingAvg, int ratingMax) {
+    int violations = 0;
+    if (games < gamesMin) {
+      violations |= GAMES_MIN;
+    }
+    if (ratingLast > this.ratingMax) {
+      violations |= RATING_MAX;
+    }
+    if (ratingLast < ratingMin) {
+      violations |= RATING_MIN;
+    }
+    if (ratingAvg > ratingAvgMax) {
+      violations |= RATING_AVG_MAX;
+    }
+    if (ratingAvg < ratingAvgMin) {
+      violations |= RATING_AVG_MIN;
+    }
+    if (ratingMax > ratingMaxMax) {
+      violations |= RATING_MAX_MAX;
+    }
+    if (ratingMax < ratingMaxMin) {
+      violations |= RATING_MAX_MIN;
+    }
+    return violations;
+  }
+
+  /**
+   * <p>
+   * Evaluates all rows. Columns with more than {@link #PARALLEL_THRESHOLD} rows are
+   * evaluated in parallel.
+   * </p>
+   *
+   * @param columns summaries to evaluate
+   * @return violation bitmask of every row, 0 if a row has no violations
+   * @see #evaluate(SummaryColumns, int)
+   */
+  public int[] evaluate(SummaryColumns columns) {
+    return evaluate(columns, PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * <p>
+   * Evaluates all rows. The loop is branch-free to let the JIT vectorize it. Columns with
+   * more than {@code parallelThreshold} rows are split into chunks of up to
+   * {@code parallelThreshold} rows that are evaluated in the common fork-join pool.
+   * </p>
+   *
+   * @param columns           summaries to evaluate
+   * @param parallelThreshold max number of rows that are evaluated in one task
+   * @return violation bitmask of every row, 0 if a row has no violations
+   */
+  public int[] evaluate(SummaryColumns columns, int parallelThreshold) {
+    if (parallelThreshold < 1) {
+      throw new IllegalArgumentException("Invalid parallel threshold: " + parallelThreshold);
+    }
+
+    int[] violations = new int[columns.size()];
+    if (columns.size() <= parallelThreshold) {
+      evaluate(columns, violations, 0, columns.size());
+    } else {
+      ForkJoinPool.commonPool().invoke(
+          new EvaluationTask(columns, violations, 0, columns.size(), parallelThreshold));
+    }
+    return violations;
+  }
+
+  private void evaluate(SummaryColumns columns, int[] violations, int from, int to) {
+    int[] games = columns.getGames();
+    int[] ratingLast = columns.getRatingLast();
+    int[] ratingAvg = columns.getRatingAvg();
+    int[] ratingMax = columns.getRatingMax();
+    for (int i = from; i < to; i++) {
+      int v = (games[i] < gamesMin ? GAMES_MIN : 0)
+          | (ratingLast[i] > this.ratingMax ? RATING_MAX : 0)
+          | (ratingLast[i] < ratingMin ? RATING_MIN : 0)
+          | (ratingAvg[i] > ratingAvgMax ? RATING_AVG_MAX : 0)
+          | (ratingAvg[i] < ratingAvgMin ? RATING_AVG_MIN : 0)
+          | (ratingMax[i] > ratingMaxMax ? RATING_MAX_MAX : 0)
+          | (ratingMax[i] < ratingMaxMin ? RATING_MAX_MIN : 0);
+      violations[i] = games[i] == SummaryColumns.INACTIVE_GAMES ? INACTIVE : v;
+    }
+  }
+
+  /**
+   * <p>Builds human-readable errors of a row violations in rule order.</p>
+   *
+   * @param violations violation bitmask of the row
+   * @param columns    evaluated columns
+   * @param row        row index
+   * @return errors, empty list if there are no violations
+   */
+  public static List<String> describe(int violations, SummaryColumns columns, int row) {
+    return describe(
+        violations,
+        columns.getGames()[row],
+        columns.getRatingLast()[row],
+        columns.getRatingAvg()[row],
+        columns.getRatingMax()[row]
+    );
+  }
+
+  /**
+   * <p>Evaluates a summary. Null summary means that the player is inactive.</p>
+   *
+   * @param summary summary to evaluate, nullable
+   * @return violation bitmask, 0 if there are no violations
+   */
+  public int evaluate(PlayerSummary summary) {
+    return summary == null
+        ? INACTIVE
+        : evaluate(
+            summary.getGames(),
+            summary.getRatingLast(),
+            summary.getRatingAvg(),
+            summary.getRatingMax()
+        );
+  }
+
+  /**
+   * <p>Builds human-readable errors of violations in rule order.</p>
+   *
+   * @param violations violation bitmask
+   * @param games      games played
+   * @param ratingLast last rating
+   * @param ratingAvg  average rating
+   * @param ratingMax  max rating
+   * @return errors, empty list if there are no violations
+   */
+  public static List<String> describe(
+      int violations, int games, int ratingLast, int ratingAvg, int ratingMax
+  ) {
+    if (violations == 0) {
+      return List.of();
+    }
+    List<String> errors = new ArrayList<>(Integer.bitCount(violations));
+    if ((violations & INACTIVE) != 0) {
+      errors.add(INACTIVE_ERROR);
+      return errors;
+    }
+    if ((violations & GAMES_MIN) != 0) {
+      errors.add("games: " + games);
+    }
+    if ((violations & RATING_MAX) != 0) {
+      errors.add("mmr: " + ratingLast);
+    }
+    if ((violations & RATING_MIN) != 0) {
+      errors.add("mmr: " + ratingLast);
+    }
+    if ((violations & RATING_AVG_MAX) != 0) {
+      errors.add("avg mmr: " + ratingAvg);
+    }
+    if ((violations & RATING_AVG_MIN) != 0) {
+      errors.add("avg mmr: " + ratingAvg);
+    }
+    if ((violations & RATING_MAX_MAX) != 0) {
+      errors.add("max mmr: " + ratingMax);
+    }
+    if ((violations & RATING_MAX_MIN) != 0) {
+      errors.add("max mmr: " + ratingMax);
+    }
+    return errors;
+  }
+
+  /**
+   * <p>Builds human-readable errors of summary violations in rule order.</p>
+   *
+   * @param violations violation bitmask
+   * @param summary    evaluated summary, nullable
+   * @return errors, empty list if there are no violations
+   */
+  public static List<String> describe(int violations, PlayerSummary summary) {
+    return summary == null
+        ? describe(violations, 0, 0, 0, 0)
+        : describe(
+            violations,
+            summary.getGames(),
+            summary.getRatingLast(),
+            summary.getRatingAvg(),
+            summary.getRatingMax()
+        );
+  }
+
+  /**
+   * <p>
+   * Evaluates a summary and builds errors, compatible with
+   * {@link LineupUtil#checkEligibility(PlayerSummary, RuleSet)}.
+   * </p>
+   *
+   * @param summary summary to evaluate, nullable
+   * @return mutable list of errors, empty list if there are no violations
+   */
+  public List<String> check(PlayerSummary summary) {
+    int violations = evaluate(summary);
+    return violations == 0 ? new ArrayList<>() : describe(violations, summary);
+  }
+
+  private final class EvaluationTask extends RecursiveAction {
+
+    private final SummaryColumns columns;
+    private final int[] violations;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    private EvaluationTask(
+        SummaryColumns columns, int[] violations, int from, int to, int threshold
+    ) {
+      this.columns = columns;
+      this.violations = violations;
+      this.from = from;
+      this.to = to;
+      this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= threshold) {
+        evaluate(columns, violations, from, to);
+        return;
+      }
+
+      int mid = (from + to) >>> 1;
+      invokeAll(
+          new EvaluationTask(columns, violations, from, mid, threshold),
+          new EvaluationTask(columns, violations, mid, to, threshold)
+      );
+    }
+
+  }
+
+}
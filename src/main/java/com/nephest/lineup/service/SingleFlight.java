@@ -0,0 +1,61 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Coalesces concurrent requests with equal keys. The first caller subscribes to the real
+ * request, subsequent callers share its result until it terminates. A new request is made
+ * for the next caller once the previous one has terminated, so results are never reused
+ * after that.
+ * </p>
+ *
+ * @param <K> key type, must implement {@code equals} and {@code hashCode}
+ * @param <V> value type
+ */
+public class SingleFlight<K, V> {
+
+  private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+  private final AtomicLong requestCount = new AtomicLong();
+  private final AtomicLong coalescedCount = new AtomicLong();
+
+  public Mono<V> execute(K key, Supplier<? extends Mono<V>> request) {
+    return Mono.defer(() -> {
+      AtomicReference<Mono<V>> created = new AtomicReference<>();
+      Mono<V> mono = inFlight.computeIfAbsent(key, k -> {
+        Mono<V> shared = request.get()
+            .doFinally(s -> inFlight.remove(k, created.get()))
+            .cache();
+        created.set(shared);
+        return shared;
+      });
+      if (mono == created.get()) {
+        requestCount.incrementAndGet();
+      } else {
+        coalescedCount.incrementAndGet();
+      }
+      return mono;
+    });
+  }
+
+  public int getInFlightCount() {
+    return inFlight.size();
+  }
+
+  public long getRequestCount() {
+    return requestCount.get();
+  }
+
+  public long getCoalescedCount() {
+    return coalescedCount.get();
+  }
+
+}
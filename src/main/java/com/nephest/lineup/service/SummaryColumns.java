@@ -0,0 +1,93 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import java.util.List;
+
+/**
+ * <p>
+ * Summaries stored as parallel primitive arrays, one row per summary. Rows of inactive
+ * players, i.e. players without a summary, have {@link #INACTIVE_GAMES} games and zero stats.
+ * </p>
+ */
+public final class SummaryColumns {
+
+  public static final int INACTIVE_GAMES = -1;
+  public static final int NO_RACE = -1;
+
+  private final int[] games;
+  private final int[] ratingLast;
+  private final int[] ratingAvg;
+  private final int[] ratingMax;
+  private final int[] race;
+
+  public SummaryColumns(int size) {
+    this.games = new int[size];
+    this.ratingLast = new int[size];
+    this.ratingAvg = new int[size];
+    this.ratingMax = new int[size];
+    this.race = new int[size];
+  }
+
+  /**
+   * <p>Creates columns from summaries. Null summaries are stored as inactive rows.</p>
+   *
+   * @param summaries summaries, may contain nulls
+   * @return columns in {@code summaries} order
+   */
+  public static SummaryColumns of(List<PlayerSummary> summaries) {
+    SummaryColumns columns = new SummaryColumns(summaries.size());
+    for (int i = 0; i < summaries.size(); i++) {
+      columns.set(i, summaries.get(i));
+    }
+    return columns;
+  }
+
+  public void set(int row, PlayerSummary summary) {
+    if (summary == null) {
+      setInactive(row, null);
+      return;
+    }
+    games[row] = summary.getGames();
+    ratingLast[row] = summary.getRatingLast();
+    ratingAvg[row] = summary.getRatingAvg();
+    ratingMax[row] = summary.getRatingMax();
+    race[row] = summary.getRace() == null ? NO_RACE : summary.getRace().ordinal();
+  }
+
+  public void setInactive(int row, Race race) {
+    games[row] = INACTIVE_GAMES;
+    ratingLast[row] = 0;
+    ratingAvg[row] = 0;
+    ratingMax[row] = 0;
+    this.race[row] = race == null ? NO_RACE : race.ordinal();
+  }
+
+  public int size() {
+    return games.length;
+  }
+
+  public int[] getGames() {
+    return games;
+  }
+
+  public int[] getRatingLast() {
+    return ratingLast;
+  }
+
+  public int[] getRatingAvg() {
+    return ratingAvg;
+  }
+
+  public int[] getRatingMax() {
+    return ratingMax;
+  }
+
+  public int[] getRace() {
+    return race;
+  }
+
+}
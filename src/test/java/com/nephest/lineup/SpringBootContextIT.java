@@ -12,12 +12,14 @@ import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.repository.LineupRepository;
 import com.nephest.lineup.data.repository.PlayerRepository;
 import com.nephest.lineup.data.repository.RuleSetRepository;
+import com.nephest.lineup.service.LineupExpiryService;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * This integration test ensures that Spring Boot is properly configured.
@@ -34,6 +36,9 @@ public class SpringBootContextIT {
   @Autowired
   private PlayerRepository playerRepository;
 
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+
   @Test
   public void verifyJpaConfig() {
     verifyModifyingMethods();
@@ -50,12 +55,36 @@ public class SpringBootContextIT {
         OffsetDateTime.now().minusDays(1),
         new ArrayList<>()
     ));
+    Lineup lineup2 = lineupRepository.save(new Lineup(
+        ruleSet,
+        1,
+        OffsetDateTime.now().minusDays(2),
+        new ArrayList<>()
+    ));
+    Lineup lineup3 = lineupRepository.save(new Lineup(
+        ruleSet,
+        1,
+        OffsetDateTime.now().plusDays(1),
+        new ArrayList<>()
+    ));
     playerRepository.saveAll(List.of(
         new Player(1L, lineup, 1, "data", Race.ZERG),
         new Player(1L, lineup, 2, "data", Race.ZERG),
-        new Player(2L, lineup, 1, "data", Race.ZERG)
+        new Player(2L, lineup, 1, "data", Race.ZERG),
+        new Player(1L, lineup2, 1, "data", Race.ZERG),
+        new Player(1L, lineup3, 1, "data", Race.ZERG)
     ));
-    assertEquals(1, lineupRepository.removeByRevealAtIsBefore(OffsetDateTime.now()));
+    //batch size of 1 to remove lineups in several batches
+    LineupExpiryService expiryService = new LineupExpiryService(
+        lineupRepository,
+        playerRepository,
+        transactionTemplate,
+        1
+    );
+    assertEquals(2, expiryService.removeRevealedBefore(OffsetDateTime.now()));
+    assertEquals(1, lineupRepository.count());
+    assertEquals(1, playerRepository.count());
+    assertEquals(lineup3.getId(), playerRepository.findAll().get(0).getLineup().getId());
   }
 
 }
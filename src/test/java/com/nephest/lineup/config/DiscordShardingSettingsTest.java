@@ -0,0 +1,52 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+public class DiscordShardingSettingsTest {
+
+  @Test
+  public void testParseIndexes() {
+    assertArrayEquals(new int[0], DiscordShardingSettings.parseIndexes(""));
+    assertArrayEquals(new int[]{0, 1, 2, 3, 5},
+        DiscordShardingSettings.parseIndexes("5, 0-3,2"));
+    assertThrows(IllegalArgumentException.class,
+        () -> DiscordShardingSettings.parseIndexes("3-1"));
+    assertThrows(IllegalArgumentException.class,
+        () -> DiscordShardingSettings.parseIndexes("-1"));
+  }
+
+  @Test
+  public void testGetExpectedIndexes() {
+    assertArrayEquals(
+        new int[]{0, 1, 2},
+        new DiscordShardingSettings(0, "", 1).getExpectedIndexes(3)
+    );
+    assertArrayEquals(
+        new int[]{0, 1},
+        new DiscordShardingSettings(2, "", 1).getExpectedIndexes(3)
+    );
+    assertArrayEquals(
+        new int[]{2, 3},
+        new DiscordShardingSettings(4, "2-3", 1).getExpectedIndexes(3)
+    );
+  }
+
+  @Test
+  public void whenIndexesAreSetWithoutCount_thenThrowException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new DiscordShardingSettings(0, "0-1", 1));
+  }
+
+  @Test
+  public void whenIndexIsOutOfRange_thenThrowException() {
+    assertThrows(IllegalArgumentException.class,
+        () -> new DiscordShardingSettings(4, "2-4", 1));
+  }
+
+}
@@ -0,0 +1,84 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.RETURNS_SELF;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.PooledConnectionProvider;
+
+public class HttpTransportSettingsTest {
+
+  private static HttpTransportSettings createSettings(HttpTransport transport) {
+    return new HttpTransportSettings(
+        transport,
+        7,
+        11,
+        Duration.ofSeconds(3),
+        Duration.ofSeconds(4),
+        Duration.ofMinutes(5),
+        Duration.ofSeconds(6),
+        true,
+        false
+    );
+  }
+
+  @Test
+  public void whenSimpleTransport_thenUseNewConnectionProvider() {
+    ConnectionProvider provider = createSettings(HttpTransport.SIMPLE)
+        .createConnectionProvider("test");
+    assertSame(ConnectionProvider.newConnection(), provider);
+  }
+
+  @Test
+  public void whenPooledTransport_thenUsePooledConnectionProvider() {
+    ConnectionProvider provider = createSettings(HttpTransport.POOLED)
+        .createConnectionProvider("test");
+    try {
+      assertTrue(provider instanceof PooledConnectionProvider);
+      assertEquals(7, provider.maxConnections());
+    } finally {
+      provider.dispose();
+    }
+  }
+
+  @Test
+  public void testPoolLimits() {
+    ConnectionProvider.Builder builder = spy(ConnectionProvider.builder("test"));
+    createSettings(HttpTransport.POOLED).configurePool(builder);
+
+    verify(builder).maxConnections(7);
+    verify(builder).pendingAcquireMaxCount(11);
+    verify(builder).pendingAcquireTimeout(Duration.ofSeconds(3));
+    verify(builder).maxIdleTime(Duration.ofSeconds(4));
+    verify(builder).maxLifeTime(Duration.ofMinutes(5));
+    verify(builder).evictInBackground(Duration.ofSeconds(6));
+    verify(builder).metrics(true);
+  }
+
+  @Test
+  public void whenCustomizingWebClient_thenUseReactorConnector() {
+    HttpTransportSettings settings = createSettings(HttpTransport.POOLED);
+    ConnectionProvider provider = settings.createConnectionProvider("test");
+    WebClient.Builder builder = mock(WebClient.Builder.class, RETURNS_SELF);
+    try {
+      new GlobalWebClientCustomizer(settings.createHttpClient(provider)).customize(builder);
+      verify(builder).clientConnector(any(ReactorClientHttpConnector.class));
+    } finally {
+      provider.dispose();
+    }
+  }
+
+}
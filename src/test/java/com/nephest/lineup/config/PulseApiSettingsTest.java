@@ -0,0 +1,42 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.config;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+public class PulseApiSettingsTest {
+
+  private static PulseApiSettings createSettings(
+      int batchMaxSize, int chunkSize, int chunkParallelism
+  ) {
+    return new PulseApiSettings(
+        1,
+        Duration.ofMinutes(1),
+        false,
+        Duration.ZERO,
+        batchMaxSize,
+        chunkSize,
+        chunkParallelism
+    );
+  }
+
+  @Test
+  public void whenBatchMaxSizeIsNotPositive_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> createSettings(0, 1, 1));
+  }
+
+  @Test
+  public void whenChunkSizeIsNotPositive_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> createSettings(1, 0, 1));
+  }
+
+  @Test
+  public void whenChunkParallelismIsNotPositive_thenThrowException() {
+    assertThrows(IllegalArgumentException.class, () -> createSettings(1, 1, 0));
+  }
+
+}
@@ -0,0 +1,97 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.data.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.RuleSet;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * <p>
+ * Verifies the number of SQL statements that are executed when lineups are loaded.
+ * Lineup associations are lazy, commands must load everything they need upfront.
+ * </p>
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class LineupRepositoryIT {
+
+  @Autowired
+  private LineupRepository lineupRepository;
+
+  @Autowired
+  private RuleSetRepository ruleSetRepository;
+
+  @Autowired
+  private PlayerRepository playerRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private UUID lineupId;
+
+  @BeforeEach
+  public void beforeEach() {
+    RuleSet ruleSet = ruleSetRepository.save(new RuleSet("ruleSet", 120));
+    Lineup lineup = lineupRepository.save(new Lineup(
+        ruleSet,
+        2,
+        OffsetDateTime.now().plusDays(1),
+        new ArrayList<>()
+    ));
+    playerRepository.saveAll(List.of(
+        new Player(1L, lineup, 1, "data", Race.ZERG),
+        new Player(1L, lineup, 2, "data", Race.ZERG),
+        new Player(2L, lineup, 1, "data", Race.TERRAN)
+    ));
+    lineupId = lineup.getId();
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  public void afterEach() {
+    playerRepository.deleteAllInBatch();
+    lineupRepository.deleteAllInBatch();
+    ruleSetRepository.deleteAllInBatch();
+  }
+
+  @Test
+  public void whenLoadingLineupById_thenDontLoadAssociations() {
+    Lineup lineup = lineupRepository.findById(lineupId).orElseThrow();
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+    assertEquals(1, statistics.getEntityLoadCount());
+    assertEquals(0, statistics.getCollectionLoadCount());
+    assertFalse(Hibernate.isInitialized(lineup.getPlayers()));
+  }
+
+  @Test
+  public void whenLoadingLineupWithPlayers_thenUseSingleQuery() {
+    Lineup lineup = lineupRepository.findWithPlayersById(lineupId).orElseThrow();
+    //associations are available outside of the session
+    assertEquals("ruleSet", lineup.getRuleSet().getName());
+    assertEquals(3, lineup.getPlayers().size());
+
+    assertEquals(1, statistics.getPrepareStatementCount());
+  }
+
+}
@@ -0,0 +1,103 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+public class CommandExecutorTest {
+
+  public static final long TIMEOUT = 5000;
+
+  private SimpleMeterRegistry meterRegistry;
+  private CommandExecutor executor;
+
+  @BeforeEach
+  public void beforeEach() {
+    meterRegistry = new SimpleMeterRegistry();
+    executor = new CommandExecutor(Schedulers.immediate(), meterRegistry);
+  }
+
+  @Test
+  public void whenConcurrencyLimitIsReached_thenRejectCommand() throws Exception {
+    Sinks.One<String> first = Sinks.one();
+    CompletableFuture<String> firstResult = executor
+        .execute("cmd", 1, first::asMono)
+        .toFuture();
+
+    assertThrows(
+        RejectedExecutionException.class,
+        () -> executor.execute("cmd", 1, () -> Mono.just("second")).block()
+    );
+    //other commands have their own limits
+    assertEquals("other", executor.execute("other", 1, () -> Mono.just("other")).block());
+
+    first.tryEmitValue("first");
+    assertEquals("first", firstResult.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    //permit is released
+    assertEquals("third", executor.execute("cmd", 1, () -> Mono.just("third")).block());
+
+    assertEquals(1, meterRegistry.get(CommandExecutor.REJECTED_METRIC_NAME)
+        .tag("command", "cmd")
+        .counter()
+        .count());
+    assertEquals(2, meterRegistry.get(CommandExecutor.QUEUE_WAIT_METRIC_NAME)
+        .tag("command", "cmd")
+        .timer()
+        .count());
+    assertEquals(0, meterRegistry.get(CommandExecutor.IN_FLIGHT_METRIC_NAME)
+        .tag("command", "cmd")
+        .gauge()
+        .value());
+  }
+
+  @Test
+  public void whenTaskIsSupplied_thenCountActiveWorkers() {
+    AtomicInteger activeWorkers = new AtomicInteger();
+    executor.execute("cmd", 1, () -> {
+      activeWorkers.set(executor.getActiveWorkers());
+      return Mono.just(1);
+    }).block();
+
+    assertEquals(1, activeWorkers.get());
+    assertEquals(0, executor.getActiveWorkers());
+    assertEquals(0, meterRegistry.get(CommandExecutor.ACTIVE_WORKERS_METRIC_NAME)
+        .gauge()
+        .value());
+  }
+
+  @Test
+  public void whenTaskIsAsynchronous_thenCountActiveWorkersUntilItTerminates() throws Exception {
+    Sinks.One<String> result = Sinks.one();
+    CompletableFuture<String> future = executor
+        .execute("cmd", 1, result::asMono)
+        .toFuture();
+    //the task has been assembled, but it's still running
+    assertEquals(1, executor.getActiveWorkers());
+
+    result.tryEmitValue("result");
+    assertEquals("result", future.get(TIMEOUT, TimeUnit.MILLISECONDS));
+    assertEquals(0, executor.getActiveWorkers());
+  }
+
+  @Test
+  public void whenTaskIsCancelled_thenReleaseActiveWorker() {
+    Sinks.One<String> result = Sinks.one();
+    executor.execute("cmd", 1, result::asMono).subscribe().dispose();
+
+    assertEquals(0, executor.getActiveWorkers());
+  }
+
+}
@@ -0,0 +1,71 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nephest.lineup.discord.CommandTrace.Phase;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+public class CommandTraceTest {
+
+  private static final Duration DELAY = Duration.ofMillis(100);
+
+  @Test
+  public void whenPhaseIsEnteredConcurrently_thenCountItOnce() {
+    CommandTrace trace = new CommandTrace();
+    Mono.zip(
+        trace.time(Phase.PULSE, Mono.delay(DELAY)),
+        trace.time(Phase.PULSE, Mono.delay(DELAY))
+    )
+        .block();
+
+    long nanos = trace.getNanos(Phase.PULSE);
+    assertTrue(nanos >= DELAY.toNanos());
+    assertTrue(nanos < DELAY.toNanos() * 2);
+    assertFalse(trace.isRecorded(Phase.DB));
+  }
+
+  @Test
+  public void whenTraceIsInContext_thenTimeMono() {
+    CommandTrace trace = new CommandTrace();
+    CommandTrace.timeInContext(Phase.PULSE, Mono.just(1))
+        .contextWrite(Context.of(CommandTrace.CONTEXT_KEY, trace))
+        .block();
+    assertTrue(trace.isRecorded(Phase.PULSE));
+
+    //no trace, nothing to record
+    assertEquals(1, CommandTrace.timeInContext(Phase.PULSE, Mono.just(1)).block());
+  }
+
+  @Test
+  public void whenTraceIsRecorded_thenRecordOnlyEnteredPhases() {
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    CommandMetrics metrics = new CommandMetrics(meterRegistry);
+    CommandTrace trace = new CommandTrace();
+    trace.record(Phase.DB, () -> "result");
+    trace.mark(Phase.TOTAL);
+
+    metrics.record("cmd", trace);
+
+    Timer db = metrics.getTimer("cmd", Phase.DB);
+    assertEquals(1, db.count());
+    assertEquals(trace.getNanos(Phase.DB), db.totalTime(TimeUnit.NANOSECONDS));
+    assertEquals(1, meterRegistry.get(CommandMetrics.PHASE_METRIC_NAME)
+        .tag("command", "cmd")
+        .tag("phase", "total")
+        .timer()
+        .count());
+    assertEquals(0, metrics.getTimer("cmd", Phase.PULSE).count());
+  }
+
+}
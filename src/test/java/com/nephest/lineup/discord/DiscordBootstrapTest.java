@@ -0,0 +1,193 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.nephest.lineup.data.CommandRegistration;
+import com.nephest.lineup.data.repository.CommandRegistrationRepository;
+import discord4j.common.util.Snowflake;
+import discord4j.core.event.domain.interaction.UserInteractionEvent;
+import discord4j.core.object.command.ApplicationCommandInteraction;
+import discord4j.core.object.command.ApplicationCommandInteractionResolved;
+import discord4j.core.object.command.Interaction;
+import discord4j.core.object.entity.Member;
+import discord4j.core.object.entity.ResolvedMember;
+import discord4j.core.object.entity.User;
+import discord4j.discordjson.json.ApplicationCommandRequest;
+import discord4j.rest.RestClient;
+import discord4j.rest.service.ApplicationService;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class DiscordBootstrapTest {
+
+  public static final String SCOPE = DiscordBootstrap.getRegistrationScope(Snowflake.of(1L), 2L);
+  public static final Snowflake GUILD_ID = Snowflake.of(2L);
+  public static final Snowflake USER_ID = Snowflake.of(3L);
+
+  @Mock
+  private RestClient restClient;
+
+  @Mock
+  private ApplicationService applicationService;
+
+  @Mock
+  private CommandRegistrationRepository repository;
+
+  @Captor
+  private ArgumentCaptor<CommandRegistration> registrationCaptor;
+
+  private static ApplicationCommandRequest command(String name, String description) {
+    return ApplicationCommandRequest.builder().name(name).description(description).build();
+  }
+
+  @Test
+  public void whenHashingCommands_thenIgnoreOrder() {
+    ApplicationCommandRequest cmd1 = command("cmd1", "description");
+    ApplicationCommandRequest cmd2 = command("cmd2", "description");
+
+    String hash = DiscordBootstrap.hashCommands(List.of(cmd1, cmd2));
+    assertEquals(64, hash.length());
+    assertEquals(hash, DiscordBootstrap.hashCommands(List.of(cmd2, cmd1)));
+    assertNotEquals(hash, DiscordBootstrap.hashCommands(List.of(
+        cmd1,
+        command("cmd2", "new description")
+    )));
+  }
+
+  @Test
+  public void whenCommandsAreUnchanged_thenSkipRegistration() {
+    List<ApplicationCommandRequest> cmds = List.of(command("cmd", "description"));
+    when(repository.findById(SCOPE)).thenReturn(Optional.of(new CommandRegistration(
+        SCOPE,
+        DiscordBootstrap.hashCommands(cmds),
+        OffsetDateTime.now()
+    )));
+
+    assertFalse(DiscordBootstrap.registerCommands(restClient, cmds, 2L, SCOPE, repository));
+    verifyNoInteractions(restClient);
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  public void whenCommandsAreChanged_thenOverwriteAllCommandsAtOnce() {
+    List<ApplicationCommandRequest> cmds = List.of(
+        command("cmd1", "description"),
+        command("cmd2", "description")
+    );
+    when(repository.findById(SCOPE)).thenReturn(Optional.of(new CommandRegistration(
+        SCOPE,
+        DiscordBootstrap.hashCommands(List.of(command("cmd1", "description"))),
+        OffsetDateTime.now()
+    )));
+    when(restClient.getApplicationService()).thenReturn(applicationService);
+    when(restClient.getApplicationId()).thenReturn(Mono.just(3L));
+    when(applicationService.bulkOverwriteGuildApplicationCommand(3L, 2L, cmds))
+        .thenReturn(Flux.empty());
+
+    assertTrue(DiscordBootstrap.registerCommands(restClient, cmds, 2L, SCOPE, repository));
+    verify(applicationService, never()).bulkOverwriteGlobalApplicationCommand(anyLong(), any());
+    verify(applicationService, never())
+        .createGuildApplicationCommand(anyLong(), anyLong(), any());
+    verify(repository).save(registrationCaptor.capture());
+    CommandRegistration registration = registrationCaptor.getValue();
+    assertEquals(SCOPE, registration.getScope());
+    assertEquals(DiscordBootstrap.hashCommands(cmds), registration.getHash());
+  }
+
+  @Test
+  public void whenGuildIsNotSet_thenUseGlobalScope() {
+    assertEquals("1:global", DiscordBootstrap.getRegistrationScope(Snowflake.of(1L), null));
+    assertEquals("1:guild:2", SCOPE);
+    assertNotEquals(
+        DiscordBootstrap.getRegistrationScope(Snowflake.of(1L), null),
+        DiscordBootstrap.getRegistrationScope(Snowflake.of(3L), null)
+    );
+  }
+
+  @Test
+  public void whenMemberIsResolved_thenUseResolvedDisplayName() {
+    UserInteractionEvent evt = mockUserInteraction();
+    ApplicationCommandInteraction commandInteraction = mock(ApplicationCommandInteraction.class);
+    ApplicationCommandInteractionResolved resolved = mock(
+        ApplicationCommandInteractionResolved.class);
+    ResolvedMember member = mock(ResolvedMember.class);
+    when(evt.getTargetId()).thenReturn(USER_ID);
+    when(evt.getInteraction().getCommandInteraction()).thenReturn(Optional.of(commandInteraction));
+    when(commandInteraction.getResolved()).thenReturn(Optional.of(resolved));
+    when(resolved.getMember(USER_ID)).thenReturn(Optional.of(member));
+    when(member.getDisplayName()).thenReturn("resolvedName");
+
+    assertEquals("resolvedName", createBootstrap().getTargetDisplayNameOrName(evt).block());
+    verify(evt.getResolvedUser(), never()).asMember(any());
+  }
+
+  @Test
+  public void whenMemberIsNotResolved_thenFetchAndCacheDisplayName() {
+    UserInteractionEvent evt = mockUserInteraction();
+    User user = evt.getResolvedUser();
+    Member member = mock(Member.class);
+    when(evt.getInteraction().getCommandInteraction()).thenReturn(Optional.empty());
+    when(user.getId()).thenReturn(USER_ID);
+    when(user.getUsername()).thenReturn("username");
+    when(user.asMember(GUILD_ID)).thenReturn(Mono.just(member));
+    when(member.getDisplayName()).thenReturn("displayName");
+
+    DiscordBootstrap bootstrap = createBootstrap();
+    assertEquals("displayName", bootstrap.getTargetDisplayNameOrName(evt).block());
+    assertEquals("displayName", bootstrap.getTargetDisplayNameOrName(evt).block());
+    verify(user, times(1)).asMember(GUILD_ID);
+  }
+
+  @Test
+  public void whenMemberIsNotFound_thenUseUsername() {
+    UserInteractionEvent evt = mockUserInteraction();
+    User user = evt.getResolvedUser();
+    when(evt.getInteraction().getCommandInteraction()).thenReturn(Optional.empty());
+    when(user.getId()).thenReturn(USER_ID);
+    when(user.getUsername()).thenReturn("username");
+    when(user.asMember(GUILD_ID)).thenReturn(Mono.empty());
+
+    assertEquals("username", createBootstrap().getTargetDisplayNameOrName(evt).block());
+  }
+
+  private static DiscordBootstrap createBootstrap() {
+    return new DiscordBootstrap(Map.of(), Duration.ofMinutes(1), 10);
+  }
+
+  private static UserInteractionEvent mockUserInteraction() {
+    UserInteractionEvent evt = mock(UserInteractionEvent.class);
+    Interaction interaction = mock(Interaction.class);
+    User user = mock(User.class);
+    when(evt.getInteraction()).thenReturn(interaction);
+    when(evt.getResolvedUser()).thenReturn(user);
+    when(interaction.getGuildId()).thenReturn(Optional.of(GUILD_ID));
+    return evt;
+  }
+
+}
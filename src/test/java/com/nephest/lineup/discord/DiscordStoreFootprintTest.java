@@ -0,0 +1,51 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import discord4j.common.store.Store;
+import discord4j.discordjson.json.gateway.MessageCreate;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * <p>
+ * Verifies that the interactions-only store doesn't retain gateway entities. Retained size
+ * of both stores is measured with JOL after the same messages are dispatched to them.
+ * Dispatch cost is measured by {@code GatewayStoreBenchmark}.
+ * </p>
+ */
+public class DiscordStoreFootprintTest {
+
+  public static final int MESSAGE_COUNT = 100;
+
+  private static long getRetainedSize(Store store) {
+    return GraphLayout.parseInstance(store).totalSize();
+  }
+
+  @Test
+  public void whenInteractionsOnly_thenDontRetainGatewayEntities() throws JsonProcessingException {
+    MessageCreate[] messages = GatewayStoreFixture.createMessages(MESSAGE_COUNT);
+    Store defaultStore = DiscordBootstrap.createStore(false);
+    long defaultEmptySize = getRetainedSize(defaultStore);
+    GatewayStoreFixture.populate(defaultStore, messages);
+    Store interactionsOnlyStore = DiscordBootstrap.createStore(true);
+    long interactionsOnlyEmptySize = getRetainedSize(interactionsOnlyStore);
+    GatewayStoreFixture.populate(interactionsOnlyStore, messages);
+
+    long retainedMessages = GatewayStoreFixture.countMessages(defaultStore);
+    assertTrue(retainedMessages > 0);
+    assertEquals(0, GatewayStoreFixture.countMessages(interactionsOnlyStore));
+    long defaultSize = getRetainedSize(defaultStore);
+    long interactionsOnlySize = getRetainedSize(interactionsOnlyStore);
+    //every retained message takes at least its content
+    assertTrue(defaultSize - defaultEmptySize > retainedMessages * 64);
+    assertEquals(interactionsOnlyEmptySize, interactionsOnlySize);
+    assertTrue(interactionsOnlySize < defaultSize);
+  }
+
+}
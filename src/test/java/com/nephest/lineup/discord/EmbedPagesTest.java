@@ -0,0 +1,46 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+public class EmbedPagesTest {
+
+  @Test
+  public void whenSectionsDontFit_thenStartNewPageAtSectionBoundary() {
+    List<String> pages = EmbedPages.paginate(
+        Flux.just("aaaa", "bbb", "cc", "dddddddd"),
+        "\n",
+        8
+    )
+        .collectList()
+        .block();
+
+    assertEquals(List.of("aaaa\nbbb", "cc", "dddddddd"), pages);
+  }
+
+  @Test
+  public void whenSectionDoesntFitIntoEmptyPage_thenSplitItAtLineBreaks() {
+    assertEquals(
+        List.of("aa\nbb\n", "cccccc", "\ndd"),
+        EmbedPages.split("aa\nbb\ncccccc\ndd", 6)
+    );
+    assertEquals(List.of("abc"), EmbedPages.split("abc", 3));
+
+    List<String> pages = EmbedPages.paginate(Flux.just("a", "bb\ncc\ndd"), "\n", 6)
+        .collectList()
+        .block();
+    assertEquals(List.of("a", "bb\ncc\n", "dd"), pages);
+  }
+
+  @Test
+  public void whenThereAreNoSections_thenEmitNothing() {
+    assertEquals(List.of(), EmbedPages.paginate(Flux.empty(), "\n", 10).collectList().block());
+  }
+
+}
@@ -0,0 +1,78 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import discord4j.common.JacksonResources;
+import discord4j.common.store.Store;
+import discord4j.common.store.action.gateway.GatewayActions;
+import discord4j.common.store.action.read.ReadActions;
+import discord4j.discordjson.json.gateway.MessageCreate;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Gateway store fixtures shared by tests and benchmarks. Guild messages are used because they
+ * are the most numerous entities on large guilds.
+ * </p>
+ */
+public final class GatewayStoreFixture {
+
+  public static final String MESSAGE_TEMPLATE = "{"
+      + "\"id\":\"%1$d\","
+      + "\"channel_id\":\"2\","
+      + "\"guild_id\":\"1\","
+      + "\"author\":{\"id\":\"%2$d\",\"username\":\"user%2$d\",\"discriminator\":\"0001\","
+      + "\"avatar\":null},"
+      + "\"content\":\"message %1$d, a typical guild message that the bot never reads\","
+      + "\"timestamp\":\"2022-01-01T00:00:00.000000+00:00\","
+      + "\"edited_timestamp\":null,"
+      + "\"tts\":false,"
+      + "\"mention_everyone\":false,"
+      + "\"mentions\":[],"
+      + "\"mention_roles\":[],"
+      + "\"attachments\":[],"
+      + "\"embeds\":[],"
+      + "\"pinned\":false,"
+      + "\"type\":0"
+      + "}";
+  private static final ObjectMapper MAPPER = JacksonResources.create().getObjectMapper();
+
+  private GatewayStoreFixture() {
+  }
+
+  /**
+   * <p>Creates message dispatches with unique ids, authors are reused every 100 messages.</p>
+   *
+   * @param count message count
+   * @return dispatches
+   * @throws JsonProcessingException if a message can't be parsed
+   */
+  public static MessageCreate[] createMessages(int count) throws JsonProcessingException {
+    MessageCreate[] messages = new MessageCreate[count];
+    for (int i = 0; i < count; i++) {
+      messages[i] = MAPPER.readValue(
+          String.format(MESSAGE_TEMPLATE, i + 1000, i % 100 + 10),
+          MessageCreate.class
+      );
+    }
+    return messages;
+  }
+
+  public static void populate(Store store, MessageCreate... messages) {
+    for (MessageCreate message : messages) {
+      execute(store, message);
+    }
+  }
+
+  public static Object execute(Store store, MessageCreate message) {
+    return Mono.from(store.execute(GatewayActions.messageCreate(0, message))).block();
+  }
+
+  public static long countMessages(Store store) {
+    return Mono.from(store.execute(ReadActions.countMessages())).blockOptional().orElse(0L);
+  }
+
+}
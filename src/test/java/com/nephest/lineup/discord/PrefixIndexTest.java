@@ -0,0 +1,48 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PrefixIndexTest {
+
+  private PrefixIndex<String> index;
+
+  @BeforeEach
+  public void beforeEach() {
+    index = new PrefixIndex<>(10, 3, Duration.ofDays(1));
+  }
+
+  @Test
+  public void whenFindingByPrefix_thenReturnMostRecentFirst() {
+    index.put(1L, "abc", "abc");
+    index.put(1L, "ABD", "abd");
+    index.put(1L, "bcd", "bcd");
+
+    assertEquals(List.of("abd", "abc"), index.find(1L, "aB", 10));
+    assertEquals(List.of("bcd", "abd", "abc"), index.find(1L, "", 10));
+    assertEquals(List.of("bcd"), index.find(1L, " ", 1));
+    assertEquals(List.of(), index.find(1L, "c", 10));
+    //users don't see values of other users
+    assertEquals(List.of(), index.find(2L, "", 10));
+  }
+
+  @Test
+  public void whenMaxEntriesIsReached_thenEvictLeastRecentlyUsedEntry() {
+    index.put(1L, "1", "1");
+    index.put(1L, "2", "2");
+    index.put(1L, "3", "3");
+    //"1" is used again and becomes the most recent entry
+    index.put(1L, "1", "1");
+    index.put(1L, "4", "4");
+
+    assertEquals(List.of("4", "1", "3"), index.find(1L, "", 10));
+  }
+
+}
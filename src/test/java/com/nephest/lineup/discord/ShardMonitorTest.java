@@ -0,0 +1,182 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.nephest.lineup.discord.ShardMonitor.ShardState;
+import discord4j.core.event.domain.Event;
+import discord4j.core.event.domain.lifecycle.DisconnectEvent;
+import discord4j.core.event.domain.lifecycle.ReadyEvent;
+import discord4j.core.event.domain.lifecycle.ReconnectFailEvent;
+import discord4j.core.event.domain.message.MessageCreateEvent;
+import discord4j.gateway.ShardInfo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+
+public class ShardMonitorTest {
+
+  public static final Duration TIMEOUT = Duration.ofMinutes(2);
+  public static final Instant NOW = Instant.parse("2022-08-01T00:00:00Z");
+
+  private SimpleMeterRegistry meterRegistry;
+  private ShardMonitor monitor;
+
+  private static <T extends Event> T event(Class<T> clazz, int shard) {
+    T evt = mock(clazz);
+    when(evt.getShardInfo()).thenReturn(ShardInfo.create(shard, 2));
+    return evt;
+  }
+
+  private static Map<Integer, Boolean> getConnected(Map<Integer, ShardState> states) {
+    return states.entrySet()
+        .stream()
+        .collect(Collectors.toMap(Map.Entry::getKey, e -> e.getValue().isConnected()));
+  }
+
+  private static Status getStatus(ShardState... states) {
+    Map<Integer, ShardState> shardStates = new TreeMap<>();
+    for (int i = 0; i < states.length; i++) {
+      shardStates.put(i, states[i]);
+    }
+    return ShardHealthIndicator.getHealth(shardStates, NOW, TIMEOUT).getStatus();
+  }
+
+  @BeforeEach
+  public void beforeEach() {
+    meterRegistry = new SimpleMeterRegistry();
+    monitor = new ShardMonitor(meterRegistry);
+  }
+
+  @Test
+  public void whenEventsAreReceived_thenTrackEveryShard() {
+    monitor.record(event(ReadyEvent.class, 0));
+    monitor.record(event(MessageCreateEvent.class, 0));
+    monitor.record(event(ReadyEvent.class, 1));
+    monitor.record(event(DisconnectEvent.class, 1));
+
+    assertEquals(Map.of(0, true, 1, false), getConnected(monitor.getShardStates()));
+    assertEquals(2, meterRegistry.get(ShardMonitor.EVENT_METRIC_NAME)
+        .tag("shard", "0")
+        .counter()
+        .count());
+    assertEquals(1, meterRegistry.get(ShardMonitor.CONNECTED_METRIC_NAME)
+        .tag("shard", "0")
+        .gauge()
+        .value());
+    assertEquals(0, meterRegistry.get(ShardMonitor.CONNECTED_METRIC_NAME)
+        .tag("shard", "1")
+        .gauge()
+        .value());
+  }
+
+  @Test
+  public void whenShardIsDisconnected_thenKeepFirstDisconnectTime() {
+    monitor.record(event(ReadyEvent.class, 0));
+    monitor.record(event(DisconnectEvent.class, 0));
+    Instant disconnectedAt = monitor.getShardStates().get(0).getDisconnectedAt();
+    assertNotNull(disconnectedAt);
+
+    //failed reconnects don't extend the grace period
+    monitor.record(event(ReconnectFailEvent.class, 0));
+    assertSame(disconnectedAt, monitor.getShardStates().get(0).getDisconnectedAt());
+
+    monitor.record(event(ReadyEvent.class, 0));
+    assertSame(ShardState.CONNECTED, monitor.getShardStates().get(0));
+  }
+
+  @Test
+  public void whenExpectedShardNeverConnects_thenReportDown() {
+    monitor.expect(0, 1);
+    monitor.record(event(ReadyEvent.class, 0));
+
+    Map<Integer, ShardState> states = monitor.getShardStates();
+    assertSame(ShardState.NEVER_CONNECTED, states.get(1));
+    assertEquals(Status.DOWN, ShardHealthIndicator.getHealth(states, NOW, TIMEOUT).getStatus());
+    assertEquals(0, meterRegistry.get(ShardMonitor.CONNECTED_METRIC_NAME)
+        .tag("shard", "1")
+        .gauge()
+        .value());
+
+    //expecting a shard again doesn't reset its state
+    monitor.record(event(ReadyEvent.class, 1));
+    monitor.expect(0, 1);
+    assertEquals(
+        Status.UP,
+        ShardHealthIndicator.getHealth(monitor.getShardStates(), NOW, TIMEOUT).getStatus()
+    );
+  }
+
+  @Test
+  public void whenAllShardsAreConnected_thenReportUp() {
+    assertEquals(Status.UP, getStatus(ShardState.CONNECTED, ShardState.CONNECTED));
+  }
+
+  @Test
+  public void whenThereAreNoShards_thenReportDown() {
+    //not connected yet
+    assertEquals(Status.DOWN, getStatus());
+  }
+
+  @Test
+  public void whenShardIsDisconnectedRecently_thenReportUnknown() {
+    assertEquals(
+        Status.UNKNOWN,
+        getStatus(ShardState.CONNECTED, new ShardState(false, NOW.minus(TIMEOUT)))
+    );
+    //all shards are reconnecting
+    assertEquals(Status.UNKNOWN, getStatus(new ShardState(false, NOW.minusSeconds(1))));
+  }
+
+  @Test
+  public void whenShardIsDisconnectedForTooLong_thenReportDown() {
+    ShardState timedOut = new ShardState(false, NOW.minus(TIMEOUT).minusMillis(1));
+    assertEquals(Status.DOWN, getStatus(ShardState.CONNECTED, timedOut));
+    assertEquals(
+        Status.DOWN,
+        getStatus(new ShardState(false, NOW.minusSeconds(1)), timedOut)
+    );
+  }
+
+  @Test
+  public void whenShardHasNeverConnected_thenReportDown() {
+    assertEquals(
+        Status.DOWN,
+        getStatus(ShardState.CONNECTED, ShardState.NEVER_CONNECTED)
+    );
+  }
+
+  @Test
+  public void testHealthDetails() {
+    Instant disconnectedAt = NOW.minusSeconds(1);
+    assertEquals(
+        Map.of(
+            "shard-0", "connected",
+            "shard-1", "disconnected since " + disconnectedAt,
+            "shard-2", "never connected"
+        ),
+        ShardHealthIndicator.getHealth(
+            Map.of(
+                0, ShardState.CONNECTED,
+                1, new ShardState(false, disconnectedAt),
+                2, ShardState.NEVER_CONNECTED
+            ),
+            NOW,
+            TIMEOUT
+        ).getDetails()
+    );
+  }
+
+}
@@ -63,4 +63,20 @@ public class LineupPlayerDataToStringConverterTest {
     assertEquals(expectedResult, converter.convert(data));
   }
 
+  @Test
+  public void whenDataIsStale_thenShowStaleMarker() {
+    LineupPlayerData data = new LineupPlayerData(
+        new Player(1L, new Lineup(), 1, "123", Race.ZERG),
+        new PlayerCharacter(987L, 1L, Region.EU, 1, 1L, "name#1", null),
+        PlayerStatus.SUCCESS,
+        List.of(),
+        true
+    );
+    when(discordBootstrap.getRaceEmojiOrName(Race.ZERG)).thenReturn("zerg");
+    String expectedResult = ":white_check_mark: `1` \uD83C\uDDEA\uD83C\uDDFA zerg"
+        + "[**name**](<https://www.nephest.com/sc2/?type=character&id=987&m=1#player-stats-mmr>) "
+        + LineupPlayerDataToStringConverter.STALE_MARKER;
+    assertEquals(expectedResult, converter.convert(data));
+  }
+
 }
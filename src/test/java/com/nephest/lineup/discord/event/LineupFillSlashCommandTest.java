@@ -13,12 +13,15 @@ import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.nephest.lineup.data.Lineup;
 import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.PlayerSnapshot;
 import com.nephest.lineup.data.Race;
 import com.nephest.lineup.data.Region;
 import com.nephest.lineup.data.RuleSet;
@@ -27,6 +30,8 @@ import com.nephest.lineup.data.pulse.PlayerCharacter;
 import com.nephest.lineup.data.pulse.PlayerSummary;
 import com.nephest.lineup.data.repository.LineupRepository;
 import com.nephest.lineup.data.repository.PlayerRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
 import com.nephest.lineup.discord.DiscordBootstrap;
 import com.nephest.lineup.discord.LineupPlayerData;
 import com.nephest.lineup.discord.PlayerStatus;
@@ -42,11 +47,14 @@ import discord4j.core.spec.EmbedCreateSpec;
 import discord4j.core.spec.InteractionFollowupCreateMono;
 import discord4j.discordjson.json.ApplicationCommandInteractionOptionData;
 import java.text.ParseException;
+import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -59,10 +67,14 @@ import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.convert.ConversionService;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
 @ExtendWith(MockitoExtension.class)
 public class LineupFillSlashCommandTest {
 
+  public static final long TIMEOUT = 5000;
+
   @Mock
   private ChatInputInteractionEvent evt;
 
@@ -95,6 +107,7 @@ public class LineupFillSlashCommandTest {
 
   private LineupFillSlashCommand cmd;
   private LineupFillSlashCommand nestedSpy;
+  private AutoCompleteIndex autoCompleteIndex;
 
   public static void stubConversion(ConversionService conversionService) {
     when(conversionService.convert(any(), eq(String.class)))
@@ -103,17 +116,22 @@ public class LineupFillSlashCommandTest {
 
   @BeforeEach
   public void beforeEach() {
+    autoCompleteIndex = new AutoCompleteIndex(100, 10, Duration.ofDays(1));
     cmd = new LineupFillSlashCommand(
         lineupRepository,
         playerRepository,
         pulseApi,
-        conversionService
+        conversionService,
+        Schedulers.immediate(),
+        autoCompleteIndex
     );
     LineupFillSlashCommand lineupFillSlashCommand = new LineupFillSlashCommand(
         lineupRepository,
         playerRepository,
         pulseApi,
-        conversionService
+        conversionService,
+        Schedulers.immediate(),
+        autoCompleteIndex
     );
     nestedSpy = spy(lineupFillSlashCommand);
     cmd.setLineupFillSlashCommand(nestedSpy);
@@ -162,7 +180,7 @@ public class LineupFillSlashCommandTest {
         new ArrayList<>()
     );
     lineup.setId(id);
-    when(lineupRepository.findById(id)).thenReturn(Optional.of(lineup));
+    when(lineupRepository.findWithPlayersById(id)).thenReturn(Optional.of(lineup));
   }
 
   private void stubPulse(
@@ -184,7 +202,8 @@ public class LineupFillSlashCommandTest {
           ),
           new PlayerSummary(123L, Race.TERRAN, 1, 1, 1, 1, 1)
       );
-      when(pulseApi.getSummaries(120, 123L)).thenReturn(summaries);
+      when(pulseApi.getSummaries(120, Map.of(123L, Set.of(Race.ZERG))))
+          .thenReturn(Mono.just(summaries));
 
       List<PlayerCharacter> characters = List.of(new PlayerCharacter(
           123L,
@@ -195,7 +214,7 @@ public class LineupFillSlashCommandTest {
           "charName#1",
           null
       ));
-      when(pulseApi.getCharacters(123L)).thenReturn(characters);
+      when(pulseApi.getCharacters(123L)).thenReturn(Mono.just(characters));
     }
   }
 
@@ -213,10 +232,11 @@ public class LineupFillSlashCommandTest {
     stubPulse(gamesMin, gamesPlayed, status != PlayerStatus.UNKNOWN);
     InteractionFollowupCreateMono followup = mock(InteractionFollowupCreateMono.class);
     when(evt.createFollowup()).thenReturn(followup);
+    when(followup.withEmbeds(any(EmbedCreateSpec.class))).thenReturn(followup);
 
-    cmd.handle(evt);
+    cmd.handle(evt, new CommandTrace()).subscribe();
     ArgumentCaptor<EmbedCreateSpec> embedCaptor = ArgumentCaptor.forClass(EmbedCreateSpec.class);
-    verify(followup).withEmbeds(embedCaptor.capture());
+    verify(followup, timeout(TIMEOUT)).withEmbeds(embedCaptor.capture());
     String response = embedCaptor.getValue().description().toOptional().orElseThrow();
     header = DiscordBootstrap.coloredTextBlock(header, status != PlayerStatus.ERROR);
     assertEquals(header
@@ -269,7 +289,7 @@ public class LineupFillSlashCommandTest {
   public void whenInvalidSize_thenNotSaveAndShowError() {
     stubBasic(10, 2, true);
 
-    cmd.handle(evt);
+    cmd.handle(evt, new CommandTrace());
     verify(evt).createFollowup(responseCaptor.capture());
     verify(playerRepository, never()).saveAllAndFlush(any());
 
@@ -283,7 +303,7 @@ public class LineupFillSlashCommandTest {
   }
 
   @Test
-  public void whenGetLineup_thenRemovePlayersOfDiscordUser() {
+  public void whenGetLineup_thenKeepPlayersOfDiscordUser() {
     Lineup lineup = new Lineup(
         new RuleSet(),
         1,
@@ -296,16 +316,78 @@ public class LineupFillSlashCommandTest {
         new Player(2L, lineup, 1, "data", Race.ZERG)
     )));
     UUID uuid = UUID.randomUUID();
-    when(lineupRepository.findById(uuid)).thenReturn(Optional.of(lineup));
+    when(lineupRepository.findWithPlayersById(uuid)).thenReturn(Optional.of(lineup));
 
     NullablePair<Lineup, String> pair = cmd.getLineup(uuid, 1L);
     assertEquals(lineup, pair.getFirst());
     assertNull(pair.getSecond());
-    assertTrue(pair.getFirst()
-        .getPlayers()
-        .stream()
-        .noneMatch(p -> p.getDiscordUserId().equals(1L))
-        && pair.getFirst().getPlayers().stream().allMatch(p -> p.getDiscordUserId().equals(2L)));
+    //players are removed or replaced only when the new lineup is saved
+    assertEquals(3, pair.getFirst().getPlayers().size());
+  }
+
+  @Test
+  public void whenLineupIsResubmitted_thenSaveOnlyChangedPlayers() {
+    stubEvent();
+    stubConversion(conversionService);
+    when(conversionService.convert("z", Race.class)).thenReturn(Race.ZERG);
+    when(conversionService.convert("t", Race.class)).thenReturn(Race.TERRAN);
+    UUID id = UUID.randomUUID();
+    stubOption("id", id.toString());
+    stubOption("lineup", "123 z, name t");
+    RuleSet ruleSet = new RuleSet("name", 120);
+    ruleSet.setGamesMin(10);
+    Lineup lineup = new Lineup(ruleSet, 2, OffsetDateTime.now().plusDays(1), new ArrayList<>());
+    lineup.setId(id);
+    Player verifiedPlayer = new Player(987L, lineup, 1, "123", Race.ZERG);
+    verifiedPlayer.setId(1L);
+    verifiedPlayer.setSnapshot(new PlayerSnapshot(
+        OffsetDateTime.now(),
+        new PlayerSummary(123L, Race.ZERG, 100, 1, 1, 1, null),
+        null
+    ));
+    Player changedPlayer = new Player(987L, lineup, 2, "name", Race.PROTOSS);
+    changedPlayer.setId(2L);
+    when(lineupRepository.findWithPlayersById(id)).thenReturn(Optional.of(lineup));
+    InteractionFollowupCreateMono followup = mock(InteractionFollowupCreateMono.class);
+    when(evt.createFollowup()).thenReturn(followup);
+    when(followup.withEmbeds(any(EmbedCreateSpec.class))).thenReturn(followup);
+
+    cmd.handle(evt, new CommandTrace()).subscribe();
+    ArgumentCaptor<EmbedCreateSpec> embedCaptor = ArgumentCaptor.forClass(EmbedCreateSpec.class);
+    verify(followup, timeout(TIMEOUT)).withEmbeds(embedCaptor.capture());
+    assertTrue(embedCaptor.getValue()
+        .description()
+        .toOptional()
+        .orElseThrow()
+        .startsWith(DiscordBootstrap.coloredTextBlock("Lineup filled:", true)));
+
+    //the unchanged player is verified using its snapshot
+    verifyNoInteractions(pulseApi);
+    ArgumentCaptor<List<Player>> savedCaptor = ArgumentCaptor.forClass(List.class);
+    verify(playerRepository).saveAllAndFlush(savedCaptor.capture());
+    List<Player> saved = savedCaptor.getValue();
+    assertEquals(1, saved.size());
+    assertEquals(2L, saved.get(0).getId());
+    assertEquals("name", saved.get(0).getData());
+    assertEquals(Race.TERRAN, saved.get(0).getRace());
+    verify(playerRepository, never()).deleteAllInBatch(any());
+    //used lineups are suggested by autocomplete
+    assertEquals(
+        id.toString(),
+        autoCompleteIndex.findLineups(987L, id.toString().substring(0, 4), 10).get(0).value()
+    );
+  }
+
+  private void stubOption(String name, String value) {
+    when(evt.getOption(name)).thenReturn(Optional.of(new ApplicationCommandInteractionOption(
+        client,
+        ApplicationCommandInteractionOptionData.builder()
+            .name(name)
+            .type(ApplicationCommandOption.Type.STRING.getValue())
+            .value(value)
+            .build(),
+        null
+    )));
   }
 
   @Test
@@ -324,7 +406,7 @@ public class LineupFillSlashCommandTest {
     )));
     UUID uuid = UUID.randomUUID();
     lineup.setId(uuid);
-    when(lineupRepository.findById(uuid)).thenReturn(Optional.of(lineup));
+    when(lineupRepository.findWithPlayersById(uuid)).thenReturn(Optional.of(lineup));
 
     NullablePair<Lineup, String> pair = cmd.getLineup(uuid, 1L);
     assertEquals(lineup, pair.getFirst());
@@ -4,22 +4,43 @@
 package com.nephest.lineup.discord.event;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.Race;
 import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.repository.LineupRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.discord.EmbedPages;
 import com.nephest.lineup.service.PulseApi;
 import discord4j.core.GatewayDiscordClient;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import discord4j.core.object.command.ApplicationCommandInteractionOption;
 import discord4j.core.object.command.ApplicationCommandOption;
+import discord4j.core.object.entity.Message;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.core.spec.InteractionFollowupCreateMono;
 import discord4j.discordjson.json.ApplicationCommandInteractionOptionData;
+import java.time.Duration;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,10 +49,15 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.convert.ConversionService;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
 
 @ExtendWith(MockitoExtension.class)
 public class LineupRevealSlashCommandTest {
 
+  public static final int PARTICIPANT_COUNT = 300;
+  public static final Pattern USER_TAG_PATTERN = Pattern.compile("<@(\\d+)>");
+
   @Mock
   private LineupRepository lineupRepository;
 
@@ -54,12 +80,15 @@ public class LineupRevealSlashCommandTest {
 
   @BeforeEach
   public void beforeEach() {
-    cmd = new LineupRevealSlashCommand(lineupRepository, pulseApi, conversionService);
+    cmd = new LineupRevealSlashCommand(
+        lineupRepository,
+        pulseApi,
+        conversionService,
+        new AutoCompleteIndex(100, 10, Duration.ofDays(1))
+    );
   }
 
-  @Test
-  public void whenRevealAtIsAfterCurrentDate_thenDontReveal() {
-    UUID id = UUID.randomUUID();
+  private void stubId(UUID id) {
     when(evt.getOption("id")).thenReturn(Optional.of(new ApplicationCommandInteractionOption(
         client,
         ApplicationCommandInteractionOptionData.builder()
@@ -69,12 +98,18 @@ public class LineupRevealSlashCommandTest {
             .build(),
         null
     )));
+  }
+
+  @Test
+  public void whenRevealAtIsAfterCurrentDate_thenDontReveal() {
+    UUID id = UUID.randomUUID();
+    stubId(id);
 
     Lineup lineup = new Lineup(new RuleSet(), 1, OffsetDateTime.now().plusDays(1), List.of());
-    when(lineupRepository.findById(id)).thenReturn(Optional.of(lineup));
+    when(lineupRepository.findWithPlayersById(id)).thenReturn(Optional.of(lineup));
     LineupFillSlashCommandTest.stubConversion(conversionService);
 
-    cmd.handle(evt);
+    cmd.handle(evt, new CommandTrace());
     verify(evt).createFollowup(responseCaptor.capture());
     String response = responseCaptor.getValue();
 
@@ -85,4 +120,56 @@ public class LineupRevealSlashCommandTest {
         + "Players can be revealed after OffsetDateTime\n" + "Lineup count: 0\n", response);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  public void whenRevealDoesntFitIntoEmbed_thenSendPagesInOrder() {
+    UUID id = UUID.randomUUID();
+    stubId(id);
+    when(evt.getOption("refresh")).thenReturn(Optional.empty());
+    Lineup lineup = new Lineup(
+        new RuleSet(),
+        1,
+        OffsetDateTime.now().minusDays(1),
+        new ArrayList<>()
+    );
+    //non-pulse players, pulse is not called
+    for (long i = PARTICIPANT_COUNT; i > 0; i--) {
+      new Player(i, lineup, 1, "name", Race.ZERG);
+    }
+    when(lineupRepository.findWithPlayersById(id)).thenReturn(Optional.of(lineup));
+    LineupFillSlashCommandTest.stubConversion(conversionService);
+    Message message = mock(Message.class);
+    InteractionFollowupCreateMono followup = mock(InteractionFollowupCreateMono.class);
+    when(evt.createFollowup()).thenReturn(followup);
+    when(followup.withEmbeds(any(EmbedCreateSpec.class))).thenReturn(followup);
+    doAnswer(inv -> {
+      Mono.just(message).subscribe(inv.<CoreSubscriber<Message>>getArgument(0));
+      return null;
+    }).when(followup).subscribe(any(CoreSubscriber.class));
+
+    assertSame(message, cmd.handle(evt, new CommandTrace()).block());
+
+    ArgumentCaptor<EmbedCreateSpec> embedCaptor = ArgumentCaptor.forClass(EmbedCreateSpec.class);
+    verify(followup, atLeast(2)).withEmbeds(embedCaptor.capture());
+    List<String> pages = embedCaptor.getAllValues()
+        .stream()
+        .map(e -> e.description().toOptional().orElseThrow())
+        .collect(Collectors.toList());
+    pages.forEach(p -> assertTrue(p.length() <= EmbedPages.MAX_DESCRIPTION_LENGTH));
+    assertTrue(pages.get(0).startsWith("**Ruleset**\n"));
+    //every participant is sent once, in participant order
+    List<Long> participants = new ArrayList<>();
+    for (String page : pages) {
+      Matcher matcher = USER_TAG_PATTERN.matcher(page);
+      while (matcher.find()) {
+        participants.add(Long.parseLong(matcher.group(1)));
+      }
+    }
+    assertEquals(
+        LongStream.rangeClosed(1, PARTICIPANT_COUNT).boxed().collect(Collectors.toList()),
+        participants
+    );
+    verifyNoInteractions(pulseApi);
+  }
+
 }
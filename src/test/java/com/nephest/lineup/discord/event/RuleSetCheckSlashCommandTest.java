@@ -0,0 +1,210 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord.event;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.Region;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.pulse.PlayerCharacter;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import com.nephest.lineup.data.repository.RuleSetRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.service.EligibilityService;
+import com.nephest.lineup.service.EligibilityService.Candidate;
+import com.nephest.lineup.service.LineupUtil;
+import com.nephest.lineup.service.RuleSetEvaluator;
+import discord4j.common.util.Snowflake;
+import discord4j.core.GatewayDiscordClient;
+import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
+import discord4j.core.object.command.ApplicationCommandInteractionOption;
+import discord4j.core.object.command.ApplicationCommandOption;
+import discord4j.core.object.command.Interaction;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.User;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.core.spec.InteractionFollowupCreateMono;
+import discord4j.discordjson.json.ApplicationCommandInteractionOptionData;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class RuleSetCheckSlashCommandTest {
+
+  @Mock
+  private RuleSetRepository ruleSetRepository;
+
+  @Mock
+  private EligibilityService eligibilityService;
+
+  @Mock
+  private ConversionService conversionService;
+
+  @Mock
+  private ChatInputInteractionEvent evt;
+
+  @Mock
+  private GatewayDiscordClient client;
+
+  @Mock
+  private Interaction interaction;
+
+  @Mock
+  private User user;
+
+  private RuleSetCheckSlashCommand cmd;
+
+  @BeforeEach
+  public void beforeEach() {
+    cmd = new RuleSetCheckSlashCommand(
+        ruleSetRepository,
+        eligibilityService,
+        conversionService,
+        new AutoCompleteIndex(100, 10, Duration.ofDays(1))
+    );
+  }
+
+  private void stubOption(String name, ApplicationCommandOption.Type type, String value) {
+    when(evt.getOption(name)).thenReturn(Optional.of(new ApplicationCommandInteractionOption(
+        client,
+        ApplicationCommandInteractionOptionData.builder()
+            .name(name)
+            .type(type.getValue())
+            .value(value)
+            .build(),
+        null
+    )));
+  }
+
+  private RuleSet stubCheck(Mono<List<Candidate>> result) {
+    stubOption("ruleset-id", ApplicationCommandOption.Type.INTEGER, "1");
+    stubOption("ids", ApplicationCommandOption.Type.STRING, "1,2");
+    RuleSet ruleSet = new RuleSet("name", 120);
+    when(ruleSetRepository.findById(1L)).thenReturn(Optional.of(ruleSet));
+    when(user.getId()).thenReturn(Snowflake.of(987L));
+    when(interaction.getUser()).thenReturn(user);
+    when(evt.getInteraction()).thenReturn(interaction);
+    LineupFillSlashCommandTest.stubConversion(conversionService);
+    when(eligibilityService.check(ruleSet, 1L, 2L)).thenReturn(result);
+    return ruleSet;
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void whenPulseIsUnavailable_thenRespondWithUnavailableMessage() {
+    stubCheck(Mono.error(WebClientResponseException.create(
+        503, "Service Unavailable", null, null, null)));
+    Message message = mock(Message.class);
+    InteractionFollowupCreateMono followup = mock(InteractionFollowupCreateMono.class);
+    when(evt.createFollowup()).thenReturn(followup);
+    when(followup.withEmbeds(any(EmbedCreateSpec.class))).thenReturn(followup);
+    doAnswer(inv -> {
+      Mono.just(message).subscribe(inv.<CoreSubscriber<Message>>getArgument(0));
+      return null;
+    }).when(followup).subscribe(any(CoreSubscriber.class));
+
+    assertSame(message, cmd.handle(evt, new CommandTrace()).block());
+
+    ArgumentCaptor<EmbedCreateSpec> embedCaptor = ArgumentCaptor.forClass(EmbedCreateSpec.class);
+    verify(followup).withEmbeds(embedCaptor.capture());
+    assertEquals(
+        "**Ruleset**\nRuleSet\n\n" + LineupUtil.PULSE_UNAVAILABLE_MESSAGE,
+        embedCaptor.getValue().description().toOptional().orElseThrow()
+    );
+  }
+
+  @Test
+  public void whenUnrelatedErrorOccurs_thenPropagateIt() {
+    stubCheck(Mono.error(new IllegalStateException("test")));
+
+    assertThrows(
+        IllegalStateException.class,
+        () -> cmd.handle(evt, new CommandTrace()).block()
+    );
+    verify(evt, never()).createFollowup();
+  }
+
+  @Test
+  public void testParseIds() {
+    assertArrayEquals(
+        new Long[]{3L, 1L, 2L},
+        RuleSetCheckSlashCommand.parseIds(" 3, 1 2,,3\n1 ")
+    );
+    assertArrayEquals(new Long[0], RuleSetCheckSlashCommand.parseIds(" , "));
+    assertNull(RuleSetCheckSlashCommand.parseIds("1, two"));
+  }
+
+  @Test
+  public void testFormat() {
+    List<Candidate> candidates = List.of(
+        new Candidate(
+            1L,
+            Race.ZERG,
+            new PlayerSummary(1L, Race.ZERG, 10, 2100, 2200, 2000, null),
+            new PlayerCharacter(1L, 1L, Region.EU, 1, 1L, "name1#123", null),
+            List.of()
+        ),
+        new Candidate(
+            2L,
+            Race.TERRAN,
+            new PlayerSummary(2L, Race.TERRAN, 1, 1100, 1200, 1000, null),
+            null,
+            List.of("games: 1", "mmr: 1000")
+        ),
+        new Candidate(3L, null, null, null, List.of(RuleSetEvaluator.INACTIVE_ERROR))
+    );
+
+    assertEquals(
+        "**Eligible(1)**\n"
+            + "[**name1**](<" + String.format(LineupUtil.PULSE_CHARACTER_LINK_TEMPLATE, 1L) + ">)"
+            + " Zerg 2000\n"
+            + "\n**Ineligible(2)**\n"
+            + "`2` Terran 1000 games: 1,mmr: 1000\n"
+            + "`3` " + RuleSetEvaluator.INACTIVE_ERROR + "\n",
+        RuleSetCheckSlashCommand.format(candidates, 4096)
+    );
+  }
+
+  @Test
+  public void whenCandidatesDontFit_thenCountOmittedCandidates() {
+    List<Candidate> candidates = new ArrayList<>();
+    for (long i = 0; i < 500; i++) {
+      candidates.add(new Candidate(i, Race.ZERG, null, null, List.of()));
+    }
+    int maxLength = 1000;
+
+    String result = RuleSetCheckSlashCommand.format(candidates, maxLength);
+
+    assertTrue(result.length() <= maxLength);
+    long listed = result.lines().filter(l -> l.startsWith("`")).count();
+    assertTrue(listed > 0);
+    assertTrue(result.endsWith("*...and " + (500 - listed) + " more*"));
+  }
+
+}
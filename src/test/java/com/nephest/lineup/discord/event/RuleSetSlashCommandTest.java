@@ -4,16 +4,23 @@
 package com.nephest.lineup.discord.event;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.repository.RuleSetRepository;
+import com.nephest.lineup.discord.AutoCompleteIndex;
+import com.nephest.lineup.discord.CommandTrace;
+import discord4j.common.util.Snowflake;
 import discord4j.core.GatewayDiscordClient;
 import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
 import discord4j.core.object.command.ApplicationCommandInteractionOption;
 import discord4j.core.object.command.ApplicationCommandOption;
+import discord4j.core.object.command.Interaction;
+import discord4j.core.object.entity.User;
 import discord4j.discordjson.json.ApplicationCommandInteractionOptionData;
+import java.time.Duration;
 import java.util.Optional;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -42,15 +49,31 @@ public class RuleSetSlashCommandTest {
   @Captor
   private ArgumentCaptor<RuleSet> ruleSetCaptor;
 
+  @Mock
+  private Interaction interaction;
+
+  @Mock
+  private User user;
+
+  private AutoCompleteIndex autoCompleteIndex;
   private RuleSetSlashCommand cmd;
 
   @BeforeEach
   public void beforeEach() {
-    cmd = new RuleSetSlashCommand(ruleSetRepository, conversionService);
+    autoCompleteIndex = new AutoCompleteIndex(100, 10, Duration.ofDays(1));
+    cmd = new RuleSetSlashCommand(ruleSetRepository, conversionService, autoCompleteIndex);
   }
 
   @Test
   public void testArgumentMapping() {
+    when(user.getId()).thenReturn(Snowflake.of(987L));
+    when(interaction.getUser()).thenReturn(user);
+    when(evt.getInteraction()).thenReturn(interaction);
+    when(ruleSetRepository.save(any())).thenAnswer(a -> {
+      RuleSet saved = a.getArgument(0);
+      saved.setId(1L);
+      return saved;
+    });
     when(evt.getOption("name")).thenReturn(Optional.of(new ApplicationCommandInteractionOption(
         client,
         ApplicationCommandInteractionOptionData.builder()
@@ -142,8 +165,10 @@ public class RuleSetSlashCommandTest {
             null
         )));
 
-    cmd.handle(evt);
+    cmd.handle(evt, new CommandTrace());
     verify(ruleSetRepository).save(ruleSetCaptor.capture());
+    //created rulesets are suggested by autocomplete
+    assertEquals(1L, autoCompleteIndex.findRuleSets(987L, "1", 10).get(0).value());
 
     RuleSet ruleSet = ruleSetCaptor.getValue();
     assertEquals("name", ruleSet.getName());
@@ -0,0 +1,219 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.discord.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.repository.LineupRepository;
+import com.nephest.lineup.data.repository.PlayerRepository;
+import com.nephest.lineup.data.repository.RuleSetRepository;
+import com.nephest.lineup.discord.CommandTrace;
+import com.nephest.lineup.discord.SpringDiscordClient;
+import com.nephest.lineup.service.PulseApi;
+import discord4j.common.util.Snowflake;
+import discord4j.core.GatewayDiscordClient;
+import discord4j.core.event.domain.interaction.ChatInputInteractionEvent;
+import discord4j.core.object.command.ApplicationCommandInteractionOption;
+import discord4j.core.object.command.ApplicationCommandOption;
+import discord4j.core.object.command.Interaction;
+import discord4j.core.object.entity.Message;
+import discord4j.core.object.entity.User;
+import discord4j.core.spec.EmbedCreateSpec;
+import discord4j.core.spec.InteractionFollowupCreateMono;
+import discord4j.discordjson.json.ApplicationCommandInteractionOptionData;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import reactor.core.CoreSubscriber;
+import reactor.core.publisher.Mono;
+
+/**
+ * <p>
+ * Verifies the number of SQL statements that are executed by every command. Commands are
+ * Spring beans, so transactional methods are called through their proxies. The gateway client
+ * and the pulse API are mocked, nothing is sent to external services.
+ * </p>
+ */
+@SpringBootTest(properties = {
+    "discord.token=test",
+    "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+public class SlashCommandStatementIT {
+
+  public static final long DISCORD_USER_ID = 987L;
+
+  @MockBean
+  private SpringDiscordClient springDiscordClient;
+
+  @MockBean
+  private PulseApi pulseApi;
+
+  @Autowired
+  private LineupCreateSlashCommand lineupCreateSlashCommand;
+
+  @Autowired
+  private LineupFillSlashCommand lineupFillSlashCommand;
+
+  @Autowired
+  private LineupRevealSlashCommand lineupRevealSlashCommand;
+
+  @Autowired
+  private RuleSetCheckSlashCommand ruleSetCheckSlashCommand;
+
+  @Autowired
+  private LineupRepository lineupRepository;
+
+  @Autowired
+  private RuleSetRepository ruleSetRepository;
+
+  @Autowired
+  private PlayerRepository playerRepository;
+
+  @Autowired
+  private EntityManagerFactory entityManagerFactory;
+
+  private Statistics statistics;
+  private RuleSet ruleSet;
+
+  @BeforeEach
+  public void beforeEach() {
+    ruleSet = ruleSetRepository.save(new RuleSet("ruleSet", 120));
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @AfterEach
+  public void afterEach() {
+    playerRepository.deleteAllInBatch();
+    lineupRepository.deleteAllInBatch();
+    ruleSetRepository.deleteAllInBatch();
+  }
+
+  private Lineup createLineup(OffsetDateTime revealAt) {
+    Lineup lineup = lineupRepository.save(new Lineup(ruleSet, 2, revealAt, new ArrayList<>()));
+    playerRepository.saveAll(List.of(
+        new Player(1L, lineup, 1, "name1", Race.ZERG),
+        new Player(1L, lineup, 2, "name2", Race.TERRAN),
+        new Player(2L, lineup, 1, "name3", Race.PROTOSS),
+        new Player(2L, lineup, 2, "name4", Race.RANDOM)
+    ));
+    return lineup;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ChatInputInteractionEvent createEvent(String... options) {
+    ChatInputInteractionEvent evt = mock(ChatInputInteractionEvent.class);
+    GatewayDiscordClient client = mock(GatewayDiscordClient.class);
+    for (int i = 0; i < options.length; i += 3) {
+      when(evt.getOption(options[i])).thenReturn(Optional.of(
+          new ApplicationCommandInteractionOption(
+              client,
+              ApplicationCommandInteractionOptionData.builder()
+                  .name(options[i])
+                  .type(ApplicationCommandOption.Type.valueOf(options[i + 1]).getValue())
+                  .value(options[i + 2])
+                  .build(),
+              null
+          )));
+    }
+    User user = mock(User.class);
+    when(user.getId()).thenReturn(Snowflake.of(DISCORD_USER_ID));
+    Interaction interaction = mock(Interaction.class);
+    when(interaction.getUser()).thenReturn(user);
+    when(evt.getInteraction()).thenReturn(interaction);
+
+    Message message = mock(Message.class);
+    InteractionFollowupCreateMono followup = mock(InteractionFollowupCreateMono.class);
+    when(evt.createFollowup()).thenReturn(followup);
+    when(evt.createFollowup(anyString())).thenReturn(followup);
+    when(followup.withEmbeds(any(EmbedCreateSpec.class))).thenReturn(followup);
+    doAnswer(inv -> {
+      Mono.just(message).subscribe(inv.<CoreSubscriber<Message>>getArgument(0));
+      return null;
+    }).when(followup).subscribe(any(CoreSubscriber.class));
+    return evt;
+  }
+
+  private long handle(SlashCommand cmd, ChatInputInteractionEvent evt) {
+    statistics.clear();
+    cmd.handle(evt, new CommandTrace()).block();
+    return statistics.getPrepareStatementCount();
+  }
+
+  @Test
+  public void whenCreatingLineup_thenSelectRuleSetAndInsertLineup() {
+    ChatInputInteractionEvent evt = createEvent(
+        "ruleset-id", "INTEGER", String.valueOf(ruleSet.getId()),
+        "size", "INTEGER", "2",
+        "reveal-at", "STRING", "60"
+    );
+
+    assertEquals(2, handle(lineupCreateSlashCommand, evt));
+    assertEquals(1, statistics.getEntityInsertCount());
+  }
+
+  @Test
+  public void whenFillingLineup_thenLoadLineupOnceAndInsertOnlyNewPlayers() {
+    Lineup lineup = createLineup(OffsetDateTime.now().plusDays(1));
+    ChatInputInteractionEvent evt = createEvent(
+        "id", "STRING", lineup.getId().toString(),
+        "lineup", "STRING", "name5 z, name6 t"
+    );
+
+    //lineup with players, then a player id sequence call and an insert per new player
+    assertEquals(5, handle(lineupFillSlashCommand, evt));
+    assertEquals(2, statistics.getEntityInsertCount());
+    assertEquals(6, playerRepository.count());
+
+    //nothing has changed, only the lineup is loaded
+    assertEquals(1, handle(lineupFillSlashCommand, evt));
+    verifyNoInteractions(pulseApi);
+  }
+
+  @Test
+  public void whenRevealingLineup_thenUseSingleQuery() {
+    Lineup lineup = createLineup(OffsetDateTime.now().minusDays(1));
+    ChatInputInteractionEvent evt = createEvent("id", "STRING", lineup.getId().toString());
+
+    assertEquals(1, handle(lineupRevealSlashCommand, evt));
+    verifyNoInteractions(pulseApi);
+  }
+
+  @Test
+  public void whenCheckingRuleSet_thenUseSingleQuery() {
+    when(pulseApi.getSummaries(120, 1L, 2L)).thenReturn(Mono.just(List.of()));
+    when(pulseApi.getCharacters(1L, 2L)).thenReturn(Mono.just(List.of()));
+    ChatInputInteractionEvent evt = createEvent(
+        "ruleset-id", "INTEGER", String.valueOf(ruleSet.getId()),
+        "ids", "STRING", "1,2"
+    );
+
+    assertEquals(1, handle(ruleSetCheckSlashCommand, evt));
+    assertSame(
+        evt.createFollowup().block(),
+        ruleSetCheckSlashCommand.handle(evt, new CommandTrace()).block()
+    );
+  }
+
+}
@@ -0,0 +1,99 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.Region;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.pulse.PlayerCharacter;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+
+@ExtendWith(MockitoExtension.class)
+public class EligibilityServiceTest {
+
+  @Mock
+  private PulseApi pulseApi;
+
+  private EligibilityService eligibilityService;
+
+  @BeforeEach
+  public void beforeEach() {
+    eligibilityService = new EligibilityService(pulseApi);
+  }
+
+  @Test
+  public void whenCheckingCandidates_thenSortByEligibilityAndMmr() {
+    RuleSet ruleSet = new RuleSet("name", 120, 10, null, 5000, null, null, null, null);
+    when(pulseApi.getSummaries(120, 1L, 2L, 3L, 4L)).thenReturn(Mono.just(List.of(
+        new PlayerSummary(1L, Race.ZERG, 20, 1, 1, 3000, null),
+        new PlayerSummary(1L, Race.TERRAN, 5, 1, 1, 4000, null),
+        new PlayerSummary(2L, Race.PROTOSS, 20, 1, 1, 4500, null),
+        new PlayerSummary(3L, Race.ZERG, 20, 1, 1, 6000, null)
+    )));
+    when(pulseApi.getCharacters(1L, 2L, 3L, 4L)).thenReturn(Mono.just(List.of(
+        new PlayerCharacter(1L, 1L, Region.EU, 1, 1L, "name#1", null)
+    )));
+
+    List<EligibilityService.Candidate> candidates = eligibilityService
+        .check(ruleSet, 1L, 2L, 3L, 4L)
+        .block();
+
+    assertEquals(5, candidates.size());
+    verifyCandidate(candidates.get(0), 2L, Race.PROTOSS, List.of());
+    verifyCandidate(candidates.get(1), 1L, Race.ZERG, List.of());
+    assertEquals("name#1", candidates.get(1).getCharacter().getName());
+    verifyCandidate(candidates.get(2), 3L, Race.ZERG, List.of("mmr: 6000"));
+    verifyCandidate(candidates.get(3), 1L, Race.TERRAN, List.of("games: 5"));
+    //inactive candidates are the last ones
+    verifyCandidate(candidates.get(4), 4L, null, List.of(RuleSetEvaluator.INACTIVE_ERROR));
+    assertNull(candidates.get(4).getSummary());
+  }
+
+  @Test
+  public void whenCharactersFail_thenCheckWithoutCharacters() {
+    RuleSet ruleSet = new RuleSet("name", 120);
+    when(pulseApi.getSummaries(120, 1L))
+        .thenReturn(Mono.just(List.of(new PlayerSummary(1L, Race.ZERG, 1, 1, 1, 1, null))));
+    when(pulseApi.getCharacters(1L)).thenReturn(Mono.error(new IllegalStateException()));
+
+    List<EligibilityService.Candidate> candidates = eligibilityService.check(ruleSet, 1L).block();
+
+    assertEquals(1, candidates.size());
+    assertTrue(candidates.get(0).isEligible());
+    assertNull(candidates.get(0).getCharacter());
+  }
+
+  @Test
+  public void whenTooManyCandidates_thenError() {
+    Long[] ids = LongStream.rangeClosed(1, EligibilityService.MAX_CANDIDATES + 1)
+        .boxed()
+        .toArray(Long[]::new);
+    //the error is signaled on subscription rather than thrown
+    Mono<List<Candidate>> result = eligibilityService.check(new RuleSet("name", 120), ids);
+    assertThrows(IllegalArgumentException.class, result::block);
+  }
+
+  private static void verifyCandidate(
+      EligibilityService.Candidate candidate, Long id, Race race, List<String> errors
+  ) {
+    assertEquals(id, candidate.getCharacterId());
+    assertEquals(race, candidate.getRace());
+    assertEquals(errors, candidate.getErrors());
+  }
+
+}
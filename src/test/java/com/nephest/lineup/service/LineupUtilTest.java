@@ -4,6 +4,7 @@
 package com.nephest.lineup.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.eq;
@@ -13,17 +14,25 @@ import static org.mockito.Mockito.when;
 
 import com.nephest.lineup.data.Lineup;
 import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.PlayerSnapshot;
 import com.nephest.lineup.data.Race;
 import com.nephest.lineup.data.Region;
 import com.nephest.lineup.data.RuleSet;
 import com.nephest.lineup.data.pulse.PlayerCharacter;
 import com.nephest.lineup.data.pulse.PlayerSummary;
 import com.nephest.lineup.discord.LineupPlayerData;
+import com.nephest.lineup.discord.PlayerStatus;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -34,6 +43,8 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.data.util.Pair;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
 
 @ExtendWith(MockitoExtension.class)
 public class LineupUtilTest {
@@ -160,13 +171,15 @@ public class LineupUtilTest {
   @Test
   public void whenNoSummaryIsFound_thenAddCorrespondingError() {
     Player player = new Player(1L, new Lineup(), 1, "2", Race.ZERG);
-    when(pulseApi.getSummaries(120, 2L)).thenReturn(List.of());
+    when(pulseApi.getSummaries(120, Map.of(2L, Set.of(Race.ZERG))))
+        .thenReturn(Mono.just(List.of()));
+    when(pulseApi.getCharacters(2L)).thenReturn(Mono.just(List.of()));
     Pair<Boolean, String> result = LineupUtil.processPlayers(
         new ArrayList<>(List.of(player)),
         new RuleSet("ruleset", 120),
         pulseApi,
         conversionService
-    );
+    ).block();
     assertEquals(false, result.getFirst());
     verify(conversionService).convert(conversionCaptor.capture(), eq(String.class));
     LineupPlayerData data = conversionCaptor.getAllValues()
@@ -195,12 +208,15 @@ public class LineupUtilTest {
     );
 
     //random is missing to test a corner case
-    when(pulseApi.getSummaries(120, 1L)).thenReturn(List.of(
+    when(pulseApi.getSummaries(
+        120,
+        Map.of(1L, Set.of(Race.ZERG, Race.TERRAN, Race.RANDOM))
+    )).thenReturn(Mono.just(List.of(
         new PlayerSummary(1L, Race.ZERG, 1, 1, 1, 1, 1),
         new PlayerSummary(1L, Race.TERRAN, 1, 1, 1, 1, 1)
-    ));
+    )));
 
-    when(pulseApi.getCharacters(1L)).thenReturn(List.of(new PlayerCharacter(
+    when(pulseApi.getCharacters(1L)).thenReturn(Mono.just(List.of(new PlayerCharacter(
         1L,
         1L,
         Region.EU,
@@ -208,14 +224,14 @@ public class LineupUtilTest {
         1L,
         "name",
         null
-    )));
+    ))));
 
     Pair<Boolean, String> result = LineupUtil.processPlayers(
         new ArrayList<>(players),
         ruleSet,
         pulseApi,
         conversionService
-    );
+    ).block();
     //false because random race is missing in pulse summaries
     assertEquals(false, result.getFirst());
     verify(conversionService, times(6)).convert(conversionCaptor.capture(), eq(String.class));
@@ -233,6 +249,147 @@ public class LineupUtilTest {
     }
   }
 
+  @Test
+  public void whenSummariesFail_thenRenderCharactersAndMarkPlayersAsUnknown() {
+    Player player = new Player(1L, new Lineup(), 1, "2", Race.ZERG);
+    PlayerCharacter character = new PlayerCharacter(2L, 1L, Region.EU, 1, 1L, "name#1", null);
+    when(pulseApi.getSummaries(120, Map.of(2L, Set.of(Race.ZERG))))
+        .thenReturn(Mono.error(new IllegalStateException()));
+    when(pulseApi.getCharacters(2L)).thenReturn(Mono.just(List.of(character)));
+    Pair<Boolean, String> result = LineupUtil.processPlayers(
+        new ArrayList<>(List.of(player)),
+        new RuleSet("ruleset", 120),
+        pulseApi,
+        conversionService
+    ).block();
+    assertEquals(false, result.getFirst());
+    assertTrue(result.getSecond().endsWith(LineupUtil.PULSE_UNAVAILABLE_MESSAGE));
+    verify(conversionService).convert(conversionCaptor.capture(), eq(String.class));
+    LineupPlayerData data = (LineupPlayerData) conversionCaptor.getValue();
+    assertEquals(PlayerStatus.UNKNOWN, data.getStatus());
+    assertEquals(character, data.getPlayerCharacter());
+    assertTrue(data.getErrors().isEmpty());
+  }
+
+  @Test
+  public void whenCharactersFail_thenVerifyPlayersWithoutCharacters() {
+    Player player = new Player(1L, new Lineup(), 1, "2", Race.ZERG);
+    when(pulseApi.getSummaries(120, Map.of(2L, Set.of(Race.ZERG))))
+        .thenReturn(Mono.just(List.of(new PlayerSummary(2L, Race.ZERG, 1, 1, 1, 1, 1))));
+    when(pulseApi.getCharacters(2L)).thenReturn(Mono.error(new IllegalStateException()));
+    Pair<Boolean, String> result = LineupUtil.processPlayers(
+        new ArrayList<>(List.of(player)),
+        new RuleSet("ruleset", 120),
+        pulseApi,
+        conversionService
+    ).block();
+    assertEquals(true, result.getFirst());
+    verify(conversionService).convert(conversionCaptor.capture(), eq(String.class));
+    LineupPlayerData data = (LineupPlayerData) conversionCaptor.getValue();
+    assertEquals(PlayerStatus.SUCCESS, data.getStatus());
+    assertNull(data.getPlayerCharacter());
+  }
+
+  @Test
+  public void whenProcessingPlayerGroups_thenFetchPulseDataOnce() {
+    RuleSet ruleSet = new RuleSet("ruleset", 120);
+    List<Player> group1 = new ArrayList<>(List.of(new Player(1L, lineup, 1, "2", Race.ZERG)));
+    List<Player> group2 = new ArrayList<>(List.of(
+        new Player(2L, lineup, 1, "3", Race.ZERG),
+        new Player(2L, lineup, 2, "name", Race.ZERG)
+    ));
+    Map<Long, Set<Race>> races = Map.of(2L, Set.of(Race.ZERG), 3L, Set.of(Race.ZERG));
+    when(pulseApi.getSummaries(120, races))
+        .thenReturn(Mono.just(List.of(new PlayerSummary(2L, Race.ZERG, 1, 1, 1, 1, 1))));
+    when(pulseApi.getCharacters(2L, 3L)).thenReturn(Mono.just(List.of()));
+
+    List<Pair<Boolean, String>> results = LineupUtil.processPlayerGroups(
+        List.of(group1, group2),
+        ruleSet,
+        pulseApi,
+        conversionService
+    ).block();
+
+    assertEquals(2, results.size());
+    assertEquals(true, results.get(0).getFirst());
+    //no summary for the second group
+    assertEquals(false, results.get(1).getFirst());
+    verify(pulseApi).getSummaries(120, races);
+    verify(pulseApi).getCharacters(2L, 3L);
+  }
+
+  @Test
+  public void whenPlayersAreVerified_thenCaptureSnapshotsAndRenderThemLater() {
+    Player player = new Player(1L, new Lineup(), 1, "2", Race.ZERG);
+    RuleSet ruleSet = new RuleSet("ruleset", 120, 10, null, null, null, null, null, null);
+    when(pulseApi.getSummaries(120, Map.of(2L, Set.of(Race.ZERG))))
+        .thenReturn(Mono.just(List.of(new PlayerSummary(2L, Race.ZERG, 11, 1, 2, 3, 4))));
+    when(pulseApi.getCharacters(2L)).thenReturn(Mono.just(List.of(
+        new PlayerCharacter(2L, 1L, Region.EU, 1, 1L, "name#1", null)
+    )));
+    LineupUtil.processPlayers(
+        new ArrayList<>(List.of(player)),
+        ruleSet,
+        pulseApi,
+        conversionService
+    ).block();
+
+    PlayerSnapshot snapshot = player.getSnapshot();
+    assertEquals(11, snapshot.getGames());
+    assertEquals(3, snapshot.getRatingLast());
+    assertEquals("name#1", snapshot.getCharacterName());
+    assertEquals(Region.EU, snapshot.getCharacterRegion());
+    assertTrue(LineupUtil.hasSnapshots(List.of(player)));
+
+    //stricter ruleset, same snapshot
+    RuleSet strictRuleSet = new RuleSet("ruleset", 120, 20, null, null, null, null, null, null);
+    Pair<Boolean, String> result = LineupUtil.processSnapshots(
+        new ArrayList<>(List.of(player)),
+        strictRuleSet,
+        conversionService
+    );
+    assertEquals(false, result.getFirst());
+    verify(conversionService, times(2)).convert(conversionCaptor.capture(), eq(String.class));
+    LineupPlayerData data = (LineupPlayerData) conversionCaptor.getAllValues().get(1);
+    assertEquals(List.of("games: 11"), data.getErrors());
+    assertEquals("name#1", data.getPlayerCharacter().getName());
+    verify(pulseApi).getCharacters(2L);
+  }
+
+  @Test
+  public void whenPulseDataIsStale_thenDontCaptureSnapshots() {
+    Player player = new Player(1L, new Lineup(), 1, "2", Race.ZERG);
+    RuleSet ruleSet = new RuleSet("ruleset", 120, 10, null, null, null, null, null, null);
+    PlayerSummary summary = new PlayerSummary(2L, Race.ZERG, 11, 1, 2, 3, 4);
+    summary.setStale(true);
+    when(pulseApi.getSummaries(120, Map.of(2L, Set.of(Race.ZERG))))
+        .thenReturn(Mono.just(List.of(summary)));
+    when(pulseApi.getCharacters(2L)).thenReturn(Mono.just(List.of(
+        new PlayerCharacter(2L, 1L, Region.EU, 1, 1L, "name#1", null)
+    )));
+    Pair<Boolean, String> result = LineupUtil.processPlayers(
+        new ArrayList<>(List.of(player)),
+        ruleSet,
+        pulseApi,
+        conversionService
+    ).block();
+
+    assertEquals(true, result.getFirst());
+    assertNull(player.getSnapshot());
+    assertFalse(LineupUtil.hasSnapshots(List.of(player)));
+  }
+
+  @Test
+  public void testIsPulseUnavailable() {
+    assertTrue(LineupUtil.isPulseUnavailable(WebClientResponseException.create(
+        503, "Service Unavailable", null, null, null)));
+    assertTrue(LineupUtil.isPulseUnavailable(CallNotPermittedException
+        .createCallNotPermittedException(CircuitBreaker.ofDefaults("test"))));
+    assertTrue(LineupUtil.isPulseUnavailable(BulkheadFullException
+        .createBulkheadFullException(Bulkhead.ofDefaults("test"))));
+    assertFalse(LineupUtil.isPulseUnavailable(new IllegalStateException()));
+  }
+
   private void verifyPlayerData(
       LineupPlayerData data, int slot, boolean status, Race race, boolean pulse
   ) {
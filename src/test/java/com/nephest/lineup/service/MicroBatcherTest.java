@@ -0,0 +1,101 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+public class MicroBatcherTest {
+
+  public static final Duration WINDOW = Duration.ofMillis(50);
+
+  private final List<List<Long>> requests = new CopyOnWriteArrayList<>();
+  private final List<Runnable> timers = new ArrayList<>();
+  private MicroBatcher<String, Long> batcher;
+
+  @BeforeEach
+  public void beforeEach() {
+    Scheduler scheduler = mock(Scheduler.class);
+    when(scheduler.schedule(any(), anyLong(), any(TimeUnit.class))).thenAnswer(inv -> {
+      timers.add(inv.getArgument(0));
+      return Disposables.single();
+    });
+    batcher = new MicroBatcher<>(
+        WINDOW,
+        10,
+        (key, ids) -> {
+          requests.add(Arrays.asList(ids));
+          return Mono.just(Arrays.asList(ids));
+        },
+        id -> id,
+        scheduler
+    );
+  }
+
+  private void closeWindows() {
+    List<Runnable> closing = new ArrayList<>(timers);
+    timers.clear();
+    closing.forEach(Runnable::run);
+  }
+
+  @Test
+  public void whenIdsAreDuplicated_thenReturnEveryValueOnce() {
+    List<Long> result = new ArrayList<>();
+    batcher.get("key", 1L, 1L, 2L).subscribe(result::addAll);
+    closeWindows();
+
+    assertEquals(List.of(List.of(1L, 2L)), requests);
+    assertEquals(List.of(1L, 2L), result);
+  }
+
+  @Test
+  public void whenWaiterIsCancelled_thenRemoveItsIdsFromBatch() {
+    Disposable cancelled = batcher.get("key", 1L, 2L).subscribe();
+    List<Long> result = new ArrayList<>();
+    batcher.get("key", 2L, 3L).subscribe(result::addAll);
+    cancelled.dispose();
+    closeWindows();
+
+    assertEquals(List.of(List.of(2L, 3L)), requests);
+    assertEquals(List.of(2L, 3L), result);
+  }
+
+  @Test
+  public void whenAllWaitersAreCancelled_thenDontSendBatch() {
+    List<Disposable> cancelled = List.of(
+        batcher.get("key", 1L).subscribe(),
+        batcher.get("key", 2L).subscribe()
+    );
+    cancelled.forEach(Disposable::dispose);
+    closeWindows();
+
+    assertTrue(requests.isEmpty());
+    assertEquals(0, batcher.getBatchCount());
+
+    //new lookups open a new batch
+    List<Long> result = new ArrayList<>();
+    batcher.get("key", 4L).subscribe(result::addAll);
+    closeWindows();
+    assertEquals(List.of(4L), result);
+    assertEquals(List.of(List.of(4L)), requests);
+  }
+
+}
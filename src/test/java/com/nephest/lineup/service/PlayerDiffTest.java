@@ -0,0 +1,86 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.nephest.lineup.data.Lineup;
+import com.nephest.lineup.data.Player;
+import com.nephest.lineup.data.PlayerSnapshot;
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.RuleSet;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class PlayerDiffTest {
+
+  @Test
+  public void whenPlayersAreResubmitted_thenReuseOnlyUnchangedPlayers() {
+    Lineup lineup = new Lineup(new RuleSet(), 4, OffsetDateTime.now(), new ArrayList<>());
+    List<Player> saved = List.of(
+        createPlayer(lineup, 1L, 1, "1", Race.ZERG, true),
+        createPlayer(lineup, 2L, 2, "2", Race.ZERG, true),
+        //pulse player without a snapshot, must be verified again
+        createPlayer(lineup, 3L, 3, "3", Race.ZERG, false),
+        createPlayer(lineup, 4L, 4, "name", Race.ZERG, false),
+        createPlayer(lineup, 5L, 5, "name", Race.ZERG, false)
+    );
+    List<Player> submitted = List.of(
+        createPlayer(lineup, null, 1, "1", Race.ZERG, false),
+        createPlayer(lineup, null, 2, "2", Race.TERRAN, false),
+        createPlayer(lineup, null, 3, "3", Race.ZERG, false),
+        createPlayer(lineup, null, 4, "name", Race.ZERG, false),
+        createPlayer(lineup, null, 6, "name", Race.ZERG, false)
+    );
+
+    PlayerDiff diff = PlayerDiff.of(saved, submitted);
+
+    List<Player> players = diff.getPlayers();
+    assertEquals(5, players.size());
+    assertSame(saved.get(0), players.get(0));
+    assertSame(submitted.get(1), players.get(1));
+    assertSame(submitted.get(2), players.get(2));
+    assertSame(saved.get(3), players.get(3));
+    assertSame(submitted.get(4), players.get(4));
+
+    List<Player> changed = diff.getChangedPlayers();
+    assertEquals(3, changed.size());
+    //replaced players are updated
+    assertEquals(2L, changed.get(0).getId());
+    assertEquals(3L, changed.get(1).getId());
+    //new slots are inserted
+    assertNull(changed.get(2).getId());
+
+    assertEquals(List.of(saved.get(4)), diff.getRemovedPlayers());
+  }
+
+  @Test
+  public void whenNothingIsChanged_thenDiffIsEmpty() {
+    Lineup lineup = new Lineup(new RuleSet(), 1, OffsetDateTime.now(), new ArrayList<>());
+    Player saved = createPlayer(lineup, 1L, 1, "1", Race.ZERG, true);
+    Player submitted = createPlayer(lineup, null, 1, "1", Race.ZERG, false);
+
+    PlayerDiff diff = PlayerDiff.of(List.of(saved), List.of(submitted));
+
+    assertTrue(diff.isEmpty());
+    assertSame(saved, diff.getPlayers().get(0));
+  }
+
+  private static Player createPlayer(
+      Lineup lineup, Long id, int slot, String data, Race race, boolean snapshot
+  ) {
+    Player player = new Player(1L, lineup, slot, data, race);
+    player.setId(id);
+    if (snapshot) {
+      player.setSnapshot(new PlayerSnapshot(OffsetDateTime.now(), null, null));
+    }
+    return player;
+  }
+
+}
@@ -0,0 +1,319 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.nephest.lineup.config.PulseApiSettings;
+import com.nephest.lineup.config.PulseResilienceSettings;
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.pulse.PlayerCharacter;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+@ExtendWith(MockitoExtension.class)
+public class PulseApiTest {
+
+  public static final long TIMEOUT = 5000;
+  public static final String SUMMARY_JSON
+      = "{\"playerCharacterId\":1,\"race\":\"ZERG\",\"games\":1,"
+      + "\"ratingAvg\":1,\"ratingMax\":1,\"ratingLast\":1}";
+
+  @Mock
+  private ExchangeFunction exchangeFunction;
+
+  @Captor
+  private ArgumentCaptor<ClientRequest> requestCaptor;
+
+  private PulseApi api;
+
+  public static Mono<ClientResponse> jsonResponse(String json) {
+    return Mono.just(ClientResponse.create(HttpStatus.OK)
+        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+        .body(json)
+        .build());
+  }
+
+  public static String characterJson(long id) {
+    return "{\"id\":" + id
+        + ",\"accountId\":1,\"region\":\"EU\",\"realm\":1,\"battlenetId\":1,\"name\":\"name#"
+        + id
+        + "\"}";
+  }
+
+  @BeforeEach
+  public void beforeEach() {
+    api = createApi(false);
+  }
+
+  private PulseApi createApi(boolean batch) {
+    return new PulseApi(
+        WebClient.builder().exchangeFunction(exchangeFunction).build(),
+        new PulseApiSettings(100, Duration.ofHours(1), batch, Duration.ofMillis(50), 3, 3, 2),
+        new PulseResilienceSettings(
+            60,
+            100,
+            Duration.ofSeconds(10),
+            2,
+            2,
+            Duration.ofMinutes(1),
+            10,
+            100,
+            Duration.ofHours(1)
+        ),
+        new SimpleMeterRegistry()
+    );
+  }
+
+  @Test
+  public void whenCharactersAreCached_thenFetchOnlyMissingCharacters() {
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse("[" + characterJson(1) + "," + characterJson(2) + "]"))
+        .thenReturn(jsonResponse("[" + characterJson(3) + "]"));
+
+    assertEquals(Set.of(1L, 2L), getIds(api.getCharacters(1L, 2L).block()));
+    assertEquals(Set.of(1L, 2L, 3L), getIds(api.getCharacters(1L, 2L, 3L).block()));
+    //everything is cached
+    assertEquals(Set.of(1L, 3L), getIds(api.getCharacters(1L, 3L).block()));
+
+    verify(exchangeFunction, times(2)).exchange(requestCaptor.capture());
+    List<ClientRequest> requests = requestCaptor.getAllValues();
+    assertEquals("/sc2/api/character/1,2", requests.get(0).url().getPath());
+    assertEquals("/sc2/api/character/3", requests.get(1).url().getPath());
+
+    CacheStats stats = api.getCharacterCacheStats();
+    assertEquals(4, stats.hitCount());
+    assertEquals(3, stats.missCount());
+  }
+
+  @Test
+  public void whenConcurrentIdenticalSummaryRequests_thenCoalesce() throws Exception {
+    Sinks.One<ClientResponse> response = Sinks.one();
+    when(exchangeFunction.exchange(any())).thenReturn(response.asMono());
+
+    CompletableFuture<List<PlayerSummary>> first = api.getSummaries(120, 2L, 1L).toFuture();
+    //same key, different order and duplicates
+    CompletableFuture<List<PlayerSummary>> second = api.getSummaries(120, 1L, 2L, 1L).toFuture();
+    assertEquals(1, api.getSummarySingleFlight().getInFlightCount());
+    response.tryEmitValue(jsonResponse("[" + SUMMARY_JSON + "]").block());
+
+    assertEquals(1, first.get(TIMEOUT, TimeUnit.MILLISECONDS).size());
+    assertEquals(1, second.get(TIMEOUT, TimeUnit.MILLISECONDS).size());
+    verify(exchangeFunction).exchange(requestCaptor.capture());
+    assertEquals(
+        "/sc2/api/character/1,2/summary/1v1/120",
+        requestCaptor.getValue().url().getPath()
+    );
+    assertEquals(1, api.getSummarySingleFlight().getRequestCount());
+    assertEquals(1, api.getSummarySingleFlight().getCoalescedCount());
+    assertEquals(0, api.getSummarySingleFlight().getInFlightCount());
+  }
+
+  @Test
+  public void whenSummaryRequestIsComplete_thenDontReuseIt() {
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse("[" + SUMMARY_JSON + "]"))
+        .thenReturn(jsonResponse("[]"));
+
+    assertEquals(1, api.getSummaries(120, 1L).block().size());
+    assertEquals(0, api.getSummaries(120, 1L).block().size());
+    verify(exchangeFunction, times(2)).exchange(any());
+    assertEquals(0, api.getSummarySingleFlight().getCoalescedCount());
+  }
+
+  @Test
+  public void whenBatchingIsEnabled_thenMergeConcurrentLookups() throws Exception {
+    api = createApi(true);
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse("[" + characterJson(1) + "," + characterJson(2) + "]"));
+
+    CompletableFuture<List<PlayerCharacter>> first = api.getCharacters(1L).toFuture();
+    CompletableFuture<List<PlayerCharacter>> second = api.getCharacters(2L).toFuture();
+
+    //every caller receives only its own characters
+    assertEquals(Set.of(1L), getIds(first.get(TIMEOUT, TimeUnit.MILLISECONDS)));
+    assertEquals(Set.of(2L), getIds(second.get(TIMEOUT, TimeUnit.MILLISECONDS)));
+    verify(exchangeFunction).exchange(requestCaptor.capture());
+    assertEquals("/sc2/api/character/1,2", requestCaptor.getValue().url().getPath());
+  }
+
+  @Test
+  public void whenBatchIsFull_thenSendItBeforeWindowCloses() throws Exception {
+    api = createApi(true);
+    Sinks.One<ClientResponse> response = Sinks.one();
+    when(exchangeFunction.exchange(any())).thenReturn(response.asMono());
+
+    CompletableFuture<List<PlayerSummary>> first = api.getSummaries(120, 1L, 2L).toFuture();
+    CompletableFuture<List<PlayerSummary>> second = api.getSummaries(120, 3L).toFuture();
+    //max batch size is reached, the request is sent immediately
+    verify(exchangeFunction).exchange(requestCaptor.capture());
+    assertEquals(
+        "/sc2/api/character/1,2,3/summary/1v1/120",
+        requestCaptor.getValue().url().getPath()
+    );
+    response.tryEmitValue(jsonResponse("[" + SUMMARY_JSON + "]").block());
+
+    assertEquals(1, first.get(TIMEOUT, TimeUnit.MILLISECONDS).size());
+    assertEquals(0, second.get(TIMEOUT, TimeUnit.MILLISECONDS).size());
+  }
+
+  @Test
+  public void whenTooManyIds_thenFetchChunks() {
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse(
+            "[" + characterJson(1) + "," + characterJson(2) + "," + characterJson(3) + "]"))
+        .thenReturn(jsonResponse("[" + characterJson(4) + "]"));
+
+    List<PlayerCharacter> characters = api.getCharacters(1L, 2L, 3L, 4L).block();
+
+    //chunk order is preserved
+    assertEquals(
+        List.of(1L, 2L, 3L, 4L),
+        characters.stream().map(PlayerCharacter::getId).collect(Collectors.toList())
+    );
+    verify(exchangeFunction, times(2)).exchange(requestCaptor.capture());
+    List<ClientRequest> requests = requestCaptor.getAllValues();
+    assertEquals("/sc2/api/character/1,2,3", requests.get(0).url().getPath());
+    assertEquals("/sc2/api/character/4", requests.get(1).url().getPath());
+  }
+
+  @Test
+  public void whenRaceSetsDiffer_thenRequestEveryRaceSetSeparately() {
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse("[" + SUMMARY_JSON + "]"), jsonResponse("[]"));
+
+    List<PlayerSummary> summaries = api.getSummaries(120, Map.of(
+        1L, Set.of(Race.ZERG),
+        2L, Set.of(Race.ZERG),
+        3L, Set.of(Race.ZERG, Race.TERRAN)
+    )).block();
+
+    assertEquals(1, summaries.size());
+    verify(exchangeFunction, times(2)).exchange(requestCaptor.capture());
+    assertEquals(
+        Set.of(
+            "/sc2/api/character/1,2/summary/1v1/120/ZERG",
+            "/sc2/api/character/3/summary/1v1/120/TERRAN,ZERG"
+        ),
+        requestCaptor.getAllValues()
+            .stream()
+            .map(r -> r.url().getPath())
+            .collect(Collectors.toSet())
+    );
+  }
+
+  @Test
+  public void whenPulseFails_thenServeStaleSummaries() {
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse("[" + SUMMARY_JSON + "]"))
+        .thenReturn(Mono.error(new IllegalStateException("pulse is down")));
+
+    assertFalse(api.getSummaries(120, 1L).block().get(0).isStale());
+    List<PlayerSummary> stale = api.getSummaries(120, 1L).block();
+    assertEquals(1, stale.size());
+    assertTrue(stale.get(0).isStale());
+
+    //no last known data for id 2
+    assertThrows(IllegalStateException.class, () -> api.getSummaries(120, 1L, 2L).block());
+  }
+
+  @Test
+  public void whenStaleSummariesDontCoverRequestedRaces_thenPropagateError() {
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse("[" + SUMMARY_JSON.replace("ZERG", "TERRAN") + "]"))
+        .thenReturn(Mono.error(new IllegalStateException("pulse is down")));
+
+    Race[] terran = new Race[]{Race.TERRAN};
+    assertEquals(1, api.getSummaries(120, terran, 1L).block().size());
+
+    //only terran summaries are known, the character could be active in other races
+    assertThrows(IllegalStateException.class, () -> api.getSummaries(120, 1L).block());
+    assertThrows(
+        IllegalStateException.class,
+        () -> api.getSummaries(120, new Race[]{Race.ZERG}, 1L).block()
+    );
+    List<PlayerSummary> stale = api.getSummaries(120, terran, 1L).block();
+    assertEquals(1, stale.size());
+    assertTrue(stale.get(0).isStale());
+  }
+
+  @Test
+  public void whenBatchFails_thenServeStaleSummariesOfEveryCallerSeparately() throws Exception {
+    api = createApi(true);
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(jsonResponse("[" + SUMMARY_JSON + "]"))
+        .thenReturn(Mono.error(new IllegalStateException("pulse is down")));
+    assertFalse(api.getSummaries(120, 1L).block().get(0).isStale());
+
+    //cached and uncached ids are merged into one failed batch
+    CompletableFuture<List<PlayerSummary>> cached = api.getSummaries(120, 1L).toFuture();
+    CompletableFuture<List<PlayerSummary>> uncached = api.getSummaries(120, 2L).toFuture();
+
+    List<PlayerSummary> stale = cached.get(TIMEOUT, TimeUnit.MILLISECONDS);
+    assertEquals(1, stale.size());
+    assertTrue(stale.get(0).isStale());
+    ExecutionException error = assertThrows(
+        ExecutionException.class,
+        () -> uncached.get(TIMEOUT, TimeUnit.MILLISECONDS)
+    );
+    assertTrue(error.getCause() instanceof IllegalStateException);
+    verify(exchangeFunction, times(2)).exchange(requestCaptor.capture());
+    assertEquals(
+        "/sc2/api/character/1,2/summary/1v1/120",
+        requestCaptor.getAllValues().get(1).url().getPath()
+    );
+  }
+
+  @Test
+  public void whenPulseFailsRepeatedly_thenFailFast() {
+    when(exchangeFunction.exchange(any()))
+        .thenReturn(Mono.error(new IllegalStateException("pulse is down")));
+
+    assertThrows(IllegalStateException.class, () -> api.getSummaries(120, 1L).block());
+    assertThrows(IllegalStateException.class, () -> api.getSummaries(120, 2L).block());
+    assertEquals(CircuitBreaker.State.OPEN, api.getCircuitBreaker().getState());
+
+    assertThrows(CallNotPermittedException.class, () -> api.getSummaries(120, 3L).block());
+    verify(exchangeFunction, times(2)).exchange(any());
+  }
+
+  private static Set<Long> getIds(List<PlayerCharacter> characters) {
+    return characters.stream().map(PlayerCharacter::getId).collect(Collectors.toSet());
+  }
+
+}
@@ -0,0 +1,131 @@
+//  Copyright (C) 2022 Oleksandr Masniuk
+//  SPDX-License-Identifier: AGPL-3.0-or-later
+
+package com.nephest.lineup.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.nephest.lineup.data.Race;
+import com.nephest.lineup.data.RuleSet;
+import com.nephest.lineup.data.pulse.PlayerSummary;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class RuleSetEvaluatorTest {
+
+  @Test
+  public void whenNoRules_thenNoViolations() {
+    RuleSetEvaluator evaluator = RuleSetEvaluator.compile(new RuleSet("name", 120));
+    assertEquals(
+        0,
+        evaluator.evaluate(0, Integer.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE)
+    );
+  }
+
+  @Test
+  public void whenRulesAreViolated_thenSetViolationBits() {
+    RuleSetEvaluator evaluator = RuleSetEvaluator.compile(
+        new RuleSet("name", 120, 10, 1000, 2000, 1100, 1900, 1200, 1800));
+    assertEquals(0, evaluator.evaluate(10, 1500, 1500, 1500));
+    assertEquals(
+        RuleSetEvaluator.GAMES_MIN
+            | RuleSetEvaluator.RATING_MAX
+            | RuleSetEvaluator.RATING_AVG_MIN
+            | RuleSetEvaluator.RATING_MAX_MAX,
+        evaluator.evaluate(9, 2001, 1099, 1801)
+    );
+    assertEquals(
+        RuleSetEvaluator.RATING_MIN | RuleSetEvaluator.RATING_AVG_MAX
+            | RuleSetEvaluator.RATING_MAX_MIN,
+        evaluator.evaluate(10, 999, 1901, 1199)
+    );
+    assertEquals(RuleSetEvaluator.INACTIVE, evaluator.evaluate(null));
+  }
+
+  @Test
+  public void whenDescribingViolations_thenPreserveRuleOrder() {
+    RuleSetEvaluator evaluator = RuleSetEvaluator.compile(
+        new RuleSet("name", 120, 10, null, 2000, null, 1900, null, 1800));
+    PlayerSummary summary = new PlayerSummary(1L, Race.ZERG, 9, 1901, 1801, 2001, null);
+
+    assertEquals(
+        List.of("games: 9", "mmr: 2001", "avg mmr: 1901", "max mmr: 1801"),
+        evaluator.check(summary)
+    );
+    assertEquals(List.of(RuleSetEvaluator.INACTIVE_ERROR), evaluator.check(null));
+    assertEquals(
+        List.of(),
+        evaluator.check(new PlayerSummary(1L, Race.ZERG, 10, 1, 1, 1, null))
+    );
+  }
+
+  private static SummaryColumns createColumns(int size) {
+    SummaryColumns columns = new SummaryColumns(size);
+    for (int i = 0; i < size; i++) {
+      if (i % 7 == 0) {
+        columns.setInactive(i, Race.ZERG);
+      } else {
+        columns.set(i, new PlayerSummary(1L, Race.ZERG, i % 20, 900 + i % 1100, 900 + i % 1200,
+            900 + i % 1300, null));
+      }
+    }
+    return columns;
+  }
+
+  private static void verifyRowEvaluation(
+      RuleSetEvaluator evaluator, SummaryColumns columns, int[] violations
+  ) {
+    assertEquals(columns.size(), violations.length);
+    for (int i = 0; i < columns.size(); i++) {
+      int expected = i % 7 == 0
+          ? RuleSetEvaluator.INACTIVE
+          : evaluator.evaluate(
+              columns.getGames()[i],
+              columns.getRatingLast()[i],
+              columns.getRatingAvg()[i],
+              columns.getRatingMax()[i]
+          );
+      assertEquals(expected, violations[i]);
+    }
+  }
+
+  @Test
+  public void whenEvaluatingColumns_thenMatchRowEvaluation() {
+    RuleSetEvaluator evaluator = RuleSetEvaluator.compile(
+        new RuleSet("name", 120, 10, 1000, 2000, 1100, 1900, 1200, 1800));
+    SummaryColumns columns = createColumns(2003);
+
+    int[] violations = evaluator.evaluate(columns);
+
+    verifyRowEvaluation(evaluator, columns, violations);
+    assertEquals(
+        List.of(RuleSetEvaluator.INACTIVE_ERROR),
+        RuleSetEvaluator.describe(violations[0], columns, 0)
+    );
+  }
+
+  @Test
+  public void whenColumnsExceedParallelThreshold_thenEvaluateChunksInParallel() {
+    RuleSetEvaluator evaluator = RuleSetEvaluator.compile(
+        new RuleSet("name", 120, 10, 1000, 2000, 1100, 1900, 1200, 1800));
+    SummaryColumns columns = createColumns(2003);
+
+    //uneven chunks of up to 16 rows
+    int[] violations = evaluator.evaluate(columns, 16);
+
+    verifyRowEvaluation(evaluator, columns, violations);
+    assertArrayEquals(evaluator.evaluate(columns, columns.size()), violations);
+  }
+
+  @Test
+  public void whenParallelThresholdIsInvalid_thenThrowException() {
+    RuleSetEvaluator evaluator = RuleSetEvaluator.compile(new RuleSet("name", 120));
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> evaluator.evaluate(createColumns(1), 0)
+    );
+  }
+
+}